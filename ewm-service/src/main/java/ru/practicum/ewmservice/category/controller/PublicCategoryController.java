@@ -19,9 +19,13 @@ public class PublicCategoryController {
 
     @GetMapping
     public ResponseEntity<Collection<CategoryDto>> getCategories(@RequestParam(name = "from", defaultValue = "0") Integer from,
-                                                                 @RequestParam(name = "size", defaultValue = "10") Integer size) {
+                                                                 @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                                                 @RequestParam(required = false) String after) {
         //В случае, если по заданным фильтрам не найдено ни одной категории, возвращает пустой список
         log.info("Публичный запрос на получение категорий from={}, size={}", from, size);
+        if (after != null) {
+            return categoryService.getCategoriesAfter(after, size).toResponse();
+        }
         Collection<CategoryDto> categories = categoryService.getCategories(from, size);
         log.info("Получены категорий: {}", categories.size());
         return ResponseEntity.ok(categories);
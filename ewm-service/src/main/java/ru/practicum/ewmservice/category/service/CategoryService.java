@@ -2,6 +2,7 @@ package ru.practicum.ewmservice.category.service;
 
 import org.springframework.stereotype.Service;
 import ru.practicum.ewmservice.category.dto.CategoryDto;
+import ru.practicum.ewmservice.pagination.CursorPage;
 
 import java.util.Collection;
 
@@ -11,6 +12,8 @@ public interface CategoryService {
 
     Collection<CategoryDto> getCategories(Integer from, Integer size);
 
+    CursorPage<CategoryDto> getCategoriesAfter(String after, Integer size);
+
     CategoryDto createCategory(CategoryDto categoryDto);
 
     void deleteCategory(Long catId);
@@ -8,12 +8,16 @@ import ru.practicum.ewmservice.category.dto.CategoryDto;
 import ru.practicum.ewmservice.category.dto.CategoryMapper;
 import ru.practicum.ewmservice.category.model.Category;
 import ru.practicum.ewmservice.category.repository.CategoryRepository;
+import ru.practicum.ewmservice.compilation.service.PinnedCompilationsView;
 import ru.practicum.ewmservice.events.repository.EventRepository;
 import ru.practicum.ewmservice.exception.ConditionsNotMetException;
 import ru.practicum.ewmservice.exception.ConflictException;
 import ru.practicum.ewmservice.exception.NotFoundException;
+import ru.practicum.ewmservice.pagination.CursorPage;
+import ru.practicum.ewmservice.pagination.PageCursor;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,6 +28,7 @@ public class CategoryServiceImpl implements CategoryService {
     private final CategoryRepository categoryRepository;
     private final CategoryMapper categoryMapper;
     private final EventRepository eventRepository;
+    private final PinnedCompilationsView pinnedCompilationsView;
 
     @Override
     public CategoryDto getCategoryById(Long catId) {
@@ -39,6 +44,14 @@ public class CategoryServiceImpl implements CategoryService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public CursorPage<CategoryDto> getCategoriesAfter(String after, Integer size) {
+        CursorPage.validateSize(size);
+        List<Category> categories = categoryRepository.findByIdGreaterThanOrderByIdAsc(
+                PageCursor.decode(after).id(), PageRequest.of(0, size));
+        return CursorPage.of(categories, size, categoryMapper::toDto, category -> PageCursor.ofId(category.getId()));
+    }
+
     @Override
     public CategoryDto createCategory(CategoryDto categoryDto) {
 
@@ -71,6 +84,7 @@ public class CategoryServiceImpl implements CategoryService {
             category.setName(categoryDto.getName());
         }
         Category updated = categoryRepository.save(category);
+        pinnedCompilationsView.markChanged();
         return categoryMapper.toDto(updated);
     }
 
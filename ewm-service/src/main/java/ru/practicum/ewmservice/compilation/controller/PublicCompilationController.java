@@ -20,10 +20,14 @@ public class PublicCompilationController {
     @GetMapping
     public ResponseEntity<Collection<CompilationDto>> getCompilation(@RequestParam(name = "pinned", required = false) Boolean pinned,
                                                                      @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                                                     @RequestParam(name = "size", defaultValue = "10") Integer size) {
+                                                                     @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                                                     @RequestParam(required = false) String after) {
         //В случае, если по заданным фильтрам не найде
         // но ни одной подборки, возвращает пустой список
         log.info("Публичный запрос на получение подборок");
+        if (after != null) {
+            return compilationService.getCompilationsAfter(pinned, after, size).toResponse();
+        }
         Collection<CompilationDto> compilations = compilationService.getCompilations(pinned, from, size);
         log.info("Подборки получена успешно");
         return ResponseEntity.ok(compilations);
@@ -19,7 +19,6 @@ public class CompilationMapper {
     private final UserMapper userMapper;
 
     public CompilationDto toDto(Compilation compilation,
-                                Map<Long, Long> confirmedRequests,
                                 Map<Long, Long> views) {
         return CompilationDto.builder()
                 .id(compilation.getId())
@@ -30,7 +29,7 @@ public class CompilationMapper {
                                 event,
                                 categoryMapper.toDto(event.getCategory()),
                                 userMapper.toShortDto(event.getInitiator()),
-                                confirmedRequests.getOrDefault(event.getId(), 0L).intValue(),
+                                event.getConfirmedRequests(),
                                 views.getOrDefault(event.getId(), 0L)
                         ))
                         .toList())
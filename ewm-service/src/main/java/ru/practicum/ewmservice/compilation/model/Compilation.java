@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import ru.practicum.ewmservice.events.model.Event;
 
 import java.util.HashSet;
@@ -12,6 +14,8 @@ import java.util.Set;
 
 @Entity
 @Table(name = "compilations")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -27,6 +31,8 @@ public class Compilation {
     @Column(nullable = false)
     private Boolean pinned;
 
+    // В кэше хранятся только id событий; события не удаляются, поэтому каскад в БД не оставит висячих id
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
             name = "compilation_events",
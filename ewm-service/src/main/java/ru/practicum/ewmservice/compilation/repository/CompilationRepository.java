@@ -1,8 +1,11 @@
 package ru.practicum.ewmservice.compilation.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -25,10 +28,27 @@ public interface CompilationRepository extends JpaRepository<Compilation, Long>
                                                        @Param("pinned") Boolean pinned);
 
 
+    @Query("""
+            SELECT c
+            FROM Compilation c
+            LEFT JOIN FETCH c.events e
+            LEFT JOIN FETCH e.category
+            LEFT JOIN FETCH e.initiator
+            WHERE c.pinned = true
+            ORDER BY c.id
+            """)
+    List<Compilation> findAllPinnedWithEvents();
+
     Page<Compilation> findByPinned(Boolean pinned, Pageable pageable);
 
     Page<Compilation> findAll(Pageable pageable);
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Compilation> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Compilation> findByPinnedAndIdGreaterThanOrderByIdAsc(Boolean pinned, Long id, Pageable pageable);
+
 
 }
 
@@ -4,6 +4,7 @@ import org.springframework.stereotype.Service;
 import ru.practicum.ewmservice.compilation.dto.CompilationDto;
 import ru.practicum.ewmservice.compilation.dto.NewCompilationDto;
 import ru.practicum.ewmservice.compilation.dto.UpdateCompilationRequest;
+import ru.practicum.ewmservice.pagination.CursorPage;
 
 import java.util.Collection;
 
@@ -18,5 +19,7 @@ public interface CompilationService {
 
     Collection<CompilationDto> getCompilations(Boolean pinned, int from, int size);
 
+    CursorPage<CompilationDto> getCompilationsAfter(Boolean pinned, String after, int size);
+
     CompilationDto getCompilationById(Long compId);
 }
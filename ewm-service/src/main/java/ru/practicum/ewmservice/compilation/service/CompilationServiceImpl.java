@@ -15,12 +15,11 @@ import ru.practicum.ewmservice.events.model.Event;
 import ru.practicum.ewmservice.events.repository.EventRepository;
 import ru.practicum.ewmservice.exception.ConditionsNotMetException;
 import ru.practicum.ewmservice.exception.NotFoundException;
-import ru.practicum.ewmservice.request.model.RequestStatus;
-import ru.practicum.ewmservice.request.repository.RequestRepository;
-import ru.practicum.ewmservice.stat.client.StatClientEwm;
+import ru.practicum.ewmservice.pagination.CursorPage;
+import ru.practicum.ewmservice.pagination.PageCursor;
+import ru.practicum.ewmservice.stat.service.EventViewService;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -29,8 +28,8 @@ public class CompilationServiceImpl implements CompilationService {
     private final CompilationRepository compilationRepository;
     private final EventRepository eventRepository;
     private final CompilationMapper compilationMapper;
-    private final StatClientEwm statsClientEwm;
-    private final RequestRepository requestRepository;
+    private final EventViewService eventViewService;
+    private final PinnedCompilationsView pinnedCompilationsView;
 
     @Override
     public CompilationDto createCompilation(NewCompilationDto newCompilationDto) {
@@ -45,7 +44,9 @@ public class CompilationServiceImpl implements CompilationService {
             compilation.setPinned(false);
         }
 
-        return mapWithStats(compilationRepository.save(compilation));
+        Compilation saved = compilationRepository.save(compilation);
+        pinnedCompilationsView.markChanged();
+        return mapWithStats(saved);
     }
 
     @Override
@@ -66,6 +67,7 @@ public class CompilationServiceImpl implements CompilationService {
         }
 
         Compilation saved = compilationRepository.save(compilation);
+        pinnedCompilationsView.markChanged();
         return mapWithStats(saved);
     }
 
@@ -75,6 +77,7 @@ public class CompilationServiceImpl implements CompilationService {
         Compilation compilation = getCompilationIfExists(compId);
         CompilationDto dto = mapWithStats(compilation);
         compilationRepository.delete(compilation);
+        pinnedCompilationsView.markChanged();
         return dto;
     }
 
@@ -82,6 +85,13 @@ public class CompilationServiceImpl implements CompilationService {
     public Collection<CompilationDto> getCompilations(Boolean pinned, int from, int size) {
         if (from < 0 || size <= 0) throw new IllegalArgumentException("Неверные параметры пагинации");
 
+        if (Boolean.TRUE.equals(pinned)) {
+            return pinnedCompilationsView.getPinned().stream()
+                    .skip(from)
+                    .limit(size)
+                    .toList();
+        }
+
         Pageable pageable = PageRequest.of(from / size, size);
 
         List<Compilation> compilations;
@@ -91,11 +101,27 @@ public class CompilationServiceImpl implements CompilationService {
             compilations = compilationRepository.findAll(pageable).getContent();
         }
 
+        Map<Long, Long> views = getPageViews(compilations);
         return compilations.stream()
-                .map(this::mapWithStats)
+                .map(compilation -> compilationMapper.toDto(compilation, views))
                 .toList();
     }
 
+    @Override
+    public CursorPage<CompilationDto> getCompilationsAfter(Boolean pinned, String after, int size) {
+        CursorPage.validateSize(size);
+
+        long afterId = PageCursor.decode(after).id();
+        Pageable limit = PageRequest.of(0, size);
+        List<Compilation> compilations = pinned != null
+                ? compilationRepository.findByPinnedAndIdGreaterThanOrderByIdAsc(pinned, afterId, limit)
+                : compilationRepository.findByIdGreaterThanOrderByIdAsc(afterId, limit);
+
+        Map<Long, Long> views = getPageViews(compilations);
+        return CursorPage.of(compilations, size, compilation -> compilationMapper.toDto(compilation, views),
+                compilation -> PageCursor.ofId(compilation.getId()));
+    }
+
     @Override
     @Transactional
     public CompilationDto getCompilationById(Long compId) {
@@ -112,24 +138,22 @@ public class CompilationServiceImpl implements CompilationService {
 
     private CompilationDto mapWithStats(Compilation compilation) {
         if (compilation.getEvents() == null || compilation.getEvents().isEmpty()) {
-            return compilationMapper.toDto(compilation, Map.of(), Map.of());
+            return compilationMapper.toDto(compilation, Map.of());
         }
 
-        List<Event> events = compilation.getEvents().stream().toList();
-
-        Map<Long, Long> confirmedRequests = events.stream()
-                .collect(Collectors.toMap(
-                        Event::getId,
-                        e -> requestRepository.countByEventIdAndStatus(e.getId(), RequestStatus.CONFIRMED)
-                ));
+        Map<Long, Long> views = eventViewService.getViews(
+                compilation.getEvents().stream().map(Event::getId).toList());
 
-        Map<Long, Long> views = events.stream()
-                .collect(Collectors.toMap(
-                        Event::getId,
-                        e -> statsClientEwm.getViews(e.getId(), true)
-                ));
+        return compilationMapper.toDto(compilation, views);
+    }
 
-        return compilationMapper.toDto(compilation, confirmedRequests, views);
+    // Просмотры всех событий страницы подборок одним запросом, а не по запросу на подборку
+    private Map<Long, Long> getPageViews(List<Compilation> compilations) {
+        Set<Long> eventIds = new HashSet<>();
+        for (Compilation compilation : compilations) {
+            compilation.getEvents().forEach(event -> eventIds.add(event.getId()));
+        }
+        return eventIds.isEmpty() ? Map.of() : eventViewService.getViews(eventIds);
     }
 
     private void validateCompilationRequest(String title, Set<Long> eventIds, boolean isCreate) {
@@ -0,0 +1,140 @@
+package ru.practicum.ewmservice.compilation.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewmservice.compilation.dto.CompilationDto;
+import ru.practicum.ewmservice.compilation.dto.CompilationMapper;
+import ru.practicum.ewmservice.compilation.model.Compilation;
+import ru.practicum.ewmservice.compilation.repository.CompilationRepository;
+import ru.practicum.ewmservice.events.model.Event;
+import ru.practicum.ewmservice.stat.service.EventViewService;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+// Готовые DTO закреплённых подборок для главной страницы. Снимок хранится в памяти
+// и пересобирается при следующем чтении после изменения подборки, её событий, их заявок или просмотров
+@Component
+@Slf4j
+public class PinnedCompilationsView {
+
+    private final CompilationRepository compilationRepository;
+    private final CompilationMapper compilationMapper;
+    private final EventViewService eventViewService;
+    private final TransactionTemplate readTransaction;
+
+    private final AtomicLong version = new AtomicLong();
+    // ReentrantLock, а не synchronized: пересборка ходит в БД и статистику и не должна закреплять виртуальный поток
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private volatile Snapshot snapshot = new Snapshot(-1, List.of(), Set.of());
+    // Пока идёт пересборка, неизвестно, какие события она уже прочитала
+    private volatile boolean rebuilding;
+
+    // Подборки читаются в отдельной короткой транзакции (REQUIRES_NEW не берёт EntityManager запроса из open-in-view),
+    // поэтому соединение из пула возвращается до запросов к серверу статистики
+    public PinnedCompilationsView(CompilationRepository compilationRepository,
+                                  CompilationMapper compilationMapper,
+                                  EventViewService eventViewService,
+                                  PlatformTransactionManager transactionManager) {
+        this.compilationRepository = compilationRepository;
+        this.compilationMapper = compilationMapper;
+        this.eventViewService = eventViewService;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    public List<CompilationDto> getPinned() {
+        Snapshot current = snapshot;
+        if (current.version() == version.get()) {
+            return current.compilations();
+        }
+        return rebuild();
+    }
+
+    // Изменилось что-то, что может затронуть любую подборку (сами подборки, категории)
+    public void markChanged() {
+        afterCommit(version::incrementAndGet);
+    }
+
+    // Пересборка нужна, только если событие входит в закреплённую подборку
+    public void markEventChanged(Long eventId) {
+        markEventsChanged(List.of(eventId));
+    }
+
+    // Версия поднимается один раз на весь набор событий, а не на каждое.
+    // Флаг читается до снимка: пересборка, начатая позже, уже видит закоммиченное изменение,
+    // а идущая сейчас могла прочитать событие до коммита и опубликовать устаревший снимок
+    public void markEventsChanged(Collection<Long> eventIds) {
+        afterCommit(() -> {
+            if (rebuilding) {
+                version.incrementAndGet();
+                return;
+            }
+            Set<Long> pinnedEventIds = snapshot.eventIds();
+            if (eventIds.stream().anyMatch(pinnedEventIds::contains)) {
+                version.incrementAndGet();
+            }
+        });
+    }
+
+    private List<CompilationDto> rebuild() {
+        rebuildLock.lock();
+        try {
+            rebuilding = true;
+            return rebuildLocked();
+        } finally {
+            rebuilding = false;
+            rebuildLock.unlock();
+        }
+    }
+
+    private List<CompilationDto> rebuildLocked() {
+        long buildVersion = version.get();
+        if (snapshot.version() == buildVersion) {
+            return snapshot.compilations();
+        }
+
+        // DTO строятся из уже подгруженных событий, категорий и инициаторов, поэтому маппинг возможен вне транзакции
+        List<Compilation> compilations = readTransaction.execute(status -> compilationRepository.findAllPinnedWithEvents());
+        Set<Long> eventIds = compilations.stream()
+                .flatMap(compilation -> compilation.getEvents().stream())
+                .map(Event::getId)
+                .collect(Collectors.toSet());
+        Map<Long, Long> views = eventIds.isEmpty() ? Map.of() : eventViewService.getViews(eventIds);
+        List<CompilationDto> dtos = compilations.stream()
+                .map(compilation -> compilationMapper.toDto(compilation, views))
+                .toList();
+
+        snapshot = new Snapshot(buildVersion, dtos, eventIds);
+        log.debug("Пересобраны закреплённые подборки: {}", dtos.size());
+        return dtos;
+    }
+
+    // Изменения в незавершённой транзакции не должны попасть в снимок, поэтому сброс после коммита
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private record Snapshot(long version, List<CompilationDto> compilations, Set<Long> eventIds) {
+    }
+}
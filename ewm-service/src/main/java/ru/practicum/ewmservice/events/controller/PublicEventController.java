@@ -4,6 +4,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.ewmservice.comments.dto.CommentDtoToResponse;
 import ru.practicum.ewmservice.comments.service.CommentService;
@@ -33,6 +34,7 @@ public class PublicEventController {
                                                                        @RequestParam(required = false) String sort,
                                                                        @RequestParam(name = "from", defaultValue = "0") Integer from,
                                                                        @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                                                       @RequestParam(required = false) String after,
                                                                        HttpServletRequest request) {
         // возвращает полную информацию обо всех событиях подходящих под переданные условия
         // В случае, если по заданным фильтрам не найдено ни одного события, возвращает пустой список
@@ -47,6 +49,16 @@ public class PublicEventController {
             throw new ConditionsNotMetException("Параметр categories не может быть 0");
         }
 
+        if (after != null) {
+            // курсор задаёт позицию по (eventDate, id), поэтому совместим только с сортировкой по дате;
+            // пустой text, как и в поиске, означает отсутствие фильтра
+            if (StringUtils.hasText(text) || (sort != null && !"EVENT_DATE".equals(sort))) {
+                throw new ConditionsNotMetException("Параметр after поддерживается только с sort=EVENT_DATE и без text");
+            }
+            return eventService.getAllEventsPublicAfter(categories, paid, rangeStart, rangeEnd, onlyAvailable, after, size, request)
+                    .toResponse();
+        }
+
         Collection<EventDtoFull> events = eventService.getAllEventsPublicFilter(text, categories, paid, rangeStart, rangeEnd, onlyAvailable, sort, from, size, request);
 
         return ResponseEntity.ok(events);
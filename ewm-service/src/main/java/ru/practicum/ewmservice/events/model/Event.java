@@ -32,7 +32,8 @@ public class Event {
     @JoinColumn(name = "category_id", nullable = false)
     private Category category;
 
-    @Column(name = "confirmed_requests")
+    // Счётчики меняются только атомарными UPDATE в репозитории; save() целого события их не перезаписывает
+    @Column(name = "confirmed_requests", updatable = false)
     private int confirmedRequests;
 
     @OneToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL)
@@ -63,5 +64,6 @@ public class Event {
     @Column(columnDefinition = "TEXT", nullable = false)
     private String title;
 
+    @Column(updatable = false)
     private long views;
 }
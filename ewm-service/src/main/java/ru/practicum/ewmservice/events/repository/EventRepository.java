@@ -1,7 +1,9 @@
 package ru.practicum.ewmservice.events.repository;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -17,25 +19,104 @@ import java.util.Optional;
 @Repository
 public interface EventRepository extends JpaRepository<Event, Long> {
 
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
     @Query("SELECT e FROM Event e " +
-            "WHERE (:text IS NULL OR :text = '' OR LOWER(e.annotation) LIKE LOWER(CONCAT('%', :text, '%')) " +
-            "OR LOWER(e.description) LIKE LOWER(CONCAT('%', :text, '%'))) " +
-            "AND (:categories IS NULL OR e.category.id in (:categories)) " +
+            "WHERE (:categories IS NULL OR e.category.id in (:categories)) " +
+            "AND (:paid IS NULL OR e.paid = :paid) " +
+            "AND (:onlyAvailable = false OR e.participantLimit = 0 OR e.confirmedRequests < e.participantLimit) " +
             "AND e.eventDate BETWEEN :rangeStart AND :rangeEnd " +
             "AND e.state = :state")
-    List<Event> findAllWithSort(@Param("text") String text,
-                                @Param("categories") List<Long> categories,
+    List<Event> findAllWithSort(@Param("categories") List<Long> categories,
+                                @Param("paid") Boolean paid,
+                                @Param("onlyAvailable") boolean onlyAvailable,
                                 @Param("rangeStart") Instant rangeStart,
                                 @Param("rangeEnd") Instant rangeEnd,
                                 @Param("state") State state,
                                 Pageable pageable);
 
+    // keyset-пагинация по (eventDate, id): продолжение после курсора без OFFSET, использует индекс events_event_date_id_idx
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
+    @Query("SELECT e FROM Event e " +
+            "WHERE (:categories IS NULL OR e.category.id in (:categories)) " +
+            "AND (:paid IS NULL OR e.paid = :paid) " +
+            "AND (:onlyAvailable = false OR e.participantLimit = 0 OR e.confirmedRequests < e.participantLimit) " +
+            "AND e.eventDate BETWEEN :rangeStart AND :rangeEnd " +
+            "AND (e.eventDate > :afterDate OR (e.eventDate = :afterDate AND e.id > :afterId)) " +
+            "AND e.state = :state " +
+            "ORDER BY e.eventDate, e.id")
+    List<Event> findAllAfter(@Param("categories") List<Long> categories,
+                             @Param("paid") Boolean paid,
+                             @Param("onlyAvailable") boolean onlyAvailable,
+                             @Param("rangeStart") Instant rangeStart,
+                             @Param("rangeEnd") Instant rangeEnd,
+                             @Param("afterDate") Instant afterDate,
+                             @Param("afterId") Long afterId,
+                             @Param("state") State state,
+                             Pageable pageable);
+
+    // Нативные запросы не поддерживают EntityGraph: связи подгружаются пачками через hibernate.default_batch_fetch_size.
+    // Выражение to_tsvector должно совпадать с выражением индекса events_search_idx из миграции V2__hot_query_indexes.sql.
+    // Сортировка :sort (VIEWS или EVENT_DATE) важнее релевантности, при пустом значении CASE даёт NULL
+    @Query(value = "SELECT e.* FROM events e " +
+            "WHERE to_tsvector('russian', e.annotation || ' ' || coalesce(e.description, '')) " +
+            "@@ plainto_tsquery('russian', :text) " +
+            "AND (CAST(:paid AS boolean) IS NULL OR e.paid = CAST(:paid AS boolean)) " +
+            "AND (:onlyAvailable = false OR e.participant_limit = 0 OR e.confirmed_requests < e.participant_limit) " +
+            "AND e.event_date BETWEEN :rangeStart AND :rangeEnd " +
+            "AND e.state = :state " +
+            "ORDER BY CASE WHEN :sort = 'VIEWS' THEN e.views END DESC, " +
+            "CASE WHEN :sort = 'EVENT_DATE' THEN e.event_date END, " +
+            "ts_rank(to_tsvector('russian', e.annotation || ' ' || coalesce(e.description, '')), " +
+            "plainto_tsquery('russian', :text)) DESC, e.id",
+            nativeQuery = true)
+    List<Event> searchByText(@Param("text") String text,
+                             @Param("paid") Boolean paid,
+                             @Param("onlyAvailable") boolean onlyAvailable,
+                             @Param("rangeStart") Instant rangeStart,
+                             @Param("rangeEnd") Instant rangeEnd,
+                             @Param("state") String state,
+                             @Param("sort") String sort,
+                             Pageable pageable);
+
+    @Query(value = "SELECT e.* FROM events e " +
+            "WHERE to_tsvector('russian', e.annotation || ' ' || coalesce(e.description, '')) " +
+            "@@ plainto_tsquery('russian', :text) " +
+            "AND e.category_id IN (:categories) " +
+            "AND (CAST(:paid AS boolean) IS NULL OR e.paid = CAST(:paid AS boolean)) " +
+            "AND (:onlyAvailable = false OR e.participant_limit = 0 OR e.confirmed_requests < e.participant_limit) " +
+            "AND e.event_date BETWEEN :rangeStart AND :rangeEnd " +
+            "AND e.state = :state " +
+            "ORDER BY CASE WHEN :sort = 'VIEWS' THEN e.views END DESC, " +
+            "CASE WHEN :sort = 'EVENT_DATE' THEN e.event_date END, " +
+            "ts_rank(to_tsvector('russian', e.annotation || ' ' || coalesce(e.description, '')), " +
+            "plainto_tsquery('russian', :text)) DESC, e.id",
+            nativeQuery = true)
+    List<Event> searchByTextAndCategories(@Param("text") String text,
+                                          @Param("categories") List<Long> categories,
+                                          @Param("paid") Boolean paid,
+                                          @Param("onlyAvailable") boolean onlyAvailable,
+                                          @Param("rangeStart") Instant rangeStart,
+                                          @Param("rangeEnd") Instant rangeEnd,
+                                          @Param("state") String state,
+                                          @Param("sort") String sort,
+                                          Pageable pageable);
+
+    // keyset по id: страницы не сдвигаются при вставке событий во время обхода
+    @Query("SELECT e.id FROM Event e WHERE e.state = :state AND e.id > :afterId ORDER BY e.id")
+    List<Long> findIdsByStateAfter(@Param("state") State state, @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT e.id FROM Event e WHERE e.state = :state AND e.id IN :ids ORDER BY e.id")
+    List<Long> findIdsByStateAndIdIn(@Param("state") State state, @Param("ids") Collection<Long> ids);
+
     boolean existsByCategoryId(Long catId);
 
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
     Optional<Event> findByIdAndState(Long id, State state);
 
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
     List<Event> findAllByInitiatorId(Long userId, Pageable pageable);
 
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
     @Query("SELECT e FROM Event e " +
             "WHERE (:userIds IS NULL OR e.initiator.id IN :userIds) " +
             "AND (:states IS NULL OR e.state IN :states) " +
@@ -47,4 +128,15 @@ public interface EventRepository extends JpaRepository<Event, Long> {
                              @Param("rangeStart") Instant rangeStart,
                              @Param("rangeEnd") Instant rangeEnd,
                              Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Event e SET e.confirmedRequests = e.confirmedRequests + 1 " +
+            "WHERE e.id = :eventId " +
+            "AND (e.participantLimit = 0 OR e.confirmedRequests < e.participantLimit)")
+    int incrementConfirmedRequests(@Param("eventId") Long eventId);
+
+    @Modifying
+    @Query("UPDATE Event e SET e.confirmedRequests = e.confirmedRequests - 1 " +
+            "WHERE e.id = :eventId AND e.confirmedRequests > 0")
+    int decrementConfirmedRequests(@Param("eventId") Long eventId);
 }
@@ -0,0 +1,38 @@
+package ru.practicum.ewmservice.events.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+// Пакетная запись events.views одним UPDATE ... FROM (VALUES ...) на страницу событий
+@Repository
+@RequiredArgsConstructor
+public class EventViewsRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Возвращает id событий, у которых число просмотров действительно изменилось
+    public List<Long> updateViews(Map<Long, Long> views) {
+        if (views.isEmpty()) {
+            return List.of();
+        }
+
+        List<Object> args = new ArrayList<>(views.size() * 2);
+        views.forEach((eventId, eventViews) -> {
+            args.add(eventId);
+            args.add(eventViews);
+        });
+        String values = String.join(", ", Collections.nCopies(views.size(), "(CAST(? AS bigint), CAST(? AS bigint))"));
+
+        return jdbcTemplate.queryForList("UPDATE events e SET views = v.views " +
+                        "FROM (VALUES " + values + ") AS v(id, views) " +
+                        "WHERE e.id = v.id AND e.views <> v.views " +
+                        "RETURNING e.id",
+                Long.class, args.toArray());
+    }
+}
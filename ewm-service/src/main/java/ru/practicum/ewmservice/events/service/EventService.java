@@ -4,6 +4,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.stereotype.Service;
 import ru.practicum.ewmservice.events.dto.*;
 import ru.practicum.ewmservice.events.model.State;
+import ru.practicum.ewmservice.pagination.CursorPage;
 
 import java.util.Collection;
 import java.util.List;
@@ -17,6 +18,8 @@ public interface EventService {
 
     Collection<EventDtoFull> getAllEventsPublicFilter(String text, List<Long> categories, Boolean paid, String rangeStart, String rangeEnd, boolean onlyAvailable, String sort, Integer from, Integer size, HttpServletRequest request);
 
+    CursorPage<EventDtoFull> getAllEventsPublicAfter(List<Long> categories, Boolean paid, String rangeStart, String rangeEnd, boolean onlyAvailable, String after, Integer size, HttpServletRequest request);
+
     EventDtoFull getEventById(Long eventId, HttpServletRequest request);
 
     List<EventShortDto> getUserEvents(Long userId, Integer from, Integer size);
@@ -5,11 +5,13 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import ru.practicum.ewmservice.category.dto.CategoryDto;
 import ru.practicum.ewmservice.category.dto.CategoryMapper;
 import ru.practicum.ewmservice.category.model.Category;
 import ru.practicum.ewmservice.category.repository.CategoryRepository;
+import ru.practicum.ewmservice.compilation.service.PinnedCompilationsView;
 import ru.practicum.ewmservice.events.dto.*;
 import ru.practicum.ewmservice.events.model.Event;
 import ru.practicum.ewmservice.events.model.Location;
@@ -20,14 +22,13 @@ import ru.practicum.ewmservice.events.repository.LocationRepository;
 import ru.practicum.ewmservice.exception.ConditionsNotMetException;
 import ru.practicum.ewmservice.exception.ConflictException;
 import ru.practicum.ewmservice.exception.NotFoundException;
-import ru.practicum.ewmservice.request.model.RequestStatus;
-import ru.practicum.ewmservice.request.repository.RequestRepository;
-import ru.practicum.ewmservice.stat.client.StatClientEwm;
+import ru.practicum.ewmservice.pagination.CursorPage;
+import ru.practicum.ewmservice.pagination.PageCursor;
+import ru.practicum.ewmservice.stat.service.EventViewService;
 import ru.practicum.ewmservice.user.dto.UserShortDto;
 import ru.practicum.ewmservice.user.dto.UserMapper;
 import ru.practicum.ewmservice.user.model.User;
 import ru.practicum.ewmservice.user.repository.UserRepository;
-import ru.practicum.ewmservice.stat.dto.HitDtoRequest;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -44,15 +45,18 @@ import java.util.stream.Collectors;
 @Slf4j
 public class EventServiceImpl implements EventService {
 
+    private static final String SORT_EVENT_DATE = "EVENT_DATE";
+    private static final String SORT_VIEWS = "VIEWS";
+
     private final EventMapper eventMapper;
     private final EventRepository eventRepository;
     private final UserRepository userRepository;
     private final CategoryRepository categoryRepository;
     private final CategoryMapper categoryMapper;
     private final UserMapper userMapper;
-    private final StatClientEwm statClientEwm;
-    private final RequestRepository requestRepository;
+    private final EventViewService eventViewService;
     private final LocationRepository locationRepository;
+    private final PinnedCompilationsView pinnedCompilationsView;
 
 
     @Override
@@ -97,17 +101,8 @@ public class EventServiceImpl implements EventService {
                 filterUserIds, filterStates, filterCategories, start, end, pageable
         );
 
-        Map<Long, Integer> confirmedRequestsMap = events.stream()
-                .collect(Collectors.toMap(
-                        Event::getId,
-                        e -> requestRepository.countByEventIdAndStatus(e.getId(), RequestStatus.CONFIRMED).intValue()
-                ));
-
-        Map<Long, Long> viewsMap = events.stream()
-                .collect(Collectors.toMap(
-                        Event::getId,
-                        e -> statClientEwm.getViews(e.getId(), true)
-                ));
+        Map<Long, Long> viewsMap = eventViewService.getViews(
+                events.stream().map(Event::getId).toList());
 
         return events.stream()
                 .map(event -> {
@@ -115,12 +110,8 @@ public class EventServiceImpl implements EventService {
                     UserShortDto initiatorDto = userMapper.toShortDto(event.getInitiator());
                     State state = event.getState();
 
-                    EventDtoFull dto = eventMapper.toFullEventDto(event, categoryDto, initiatorDto, state, event.getViews())
-                            .toBuilder()
-                            .confirmedRequests(confirmedRequestsMap.getOrDefault(event.getId(), 0))
-                            .build();
-
-                    return dto;
+                    return eventMapper.toFullEventDto(event, categoryDto, initiatorDto, state,
+                            viewsMap.getOrDefault(event.getId(), 0L));
                 })
                 .collect(Collectors.toList());
     }
@@ -138,6 +129,7 @@ public class EventServiceImpl implements EventService {
         validateForAdminEdit(event, oldEvent, event.getStateAction());
         Event updatedEvent = eventMapper.adminUpdateEventFromDto(oldEvent, event, category);
         Event saved = eventRepository.save(updatedEvent);
+        pinnedCompilationsView.markEventChanged(saved.getId());
 
         return eventMapper.toFullEventDto(
                 saved,
@@ -150,40 +142,55 @@ public class EventServiceImpl implements EventService {
 
     @Override
     public Collection<EventDtoFull> getAllEventsPublicFilter(String text, List<Long> categories, Boolean paid, String rangeStart, String rangeEnd, boolean onlyAvailable, String sort, Integer from, Integer size, HttpServletRequest request) {
-        Pageable pageable = PageRequest.of(from / size, size);
+        validateSort(sort);
 
-        Instant start;
-        Instant end;
-        try {
-            start = rangeStart != null ? Instant.parse(rangeStart)
-                    : Instant.parse("1970-01-01T00:00:00Z"); // начало эпохи Unix
-        } catch (Exception e) {
-            start = Instant.parse("1970-01-01T00:00:00Z");
-        }
+        Instant start = parsePublicRangeStart(rangeStart);
+        Instant end = parsePublicRangeEnd(rangeEnd);
 
-        try {
-            end = rangeEnd != null ? Instant.parse(rangeEnd)
-                    : Instant.parse("3000-12-31T23:59:59Z"); // разумный максимум
-        } catch (Exception e) {
-            end = Instant.parse("3000-12-31T23:59:59Z");
+        // фильтры paid/onlyAvailable и сортировка выполняются в БД до пагинации,
+        // для VIEWS используется счётчик events.views, который обновляет EventViewsRefresher
+        Collection<Event> events;
+        if (text == null || text.isBlank()) {
+            Pageable pageable = PageRequest.of(from / size, size, toSort(sort));
+            events = eventRepository.findAllWithSort(categories, paid, onlyAvailable, start, end, State.PUBLISHED, pageable);
+        } else {
+            Pageable pageable = PageRequest.of(from / size, size);
+            String sortName = sort != null ? sort : "";
+            events = (categories == null || categories.isEmpty())
+                    ? eventRepository.searchByText(text, paid, onlyAvailable, start, end,
+                            State.PUBLISHED.name(), sortName, pageable)
+                    : eventRepository.searchByTextAndCategories(text, categories, paid, onlyAvailable, start, end,
+                            State.PUBLISHED.name(), sortName, pageable);
         }
 
-        Collection<Event> events = eventRepository.findAllWithSort(text, categories, start, end, State.PUBLISHED, pageable);
+        eventViewService.registerView(request);
 
-        HitDtoRequest hitDto = new HitDtoRequest(
-                "ewm-main-service",
-                request.getRequestURI(),
-                request.getRemoteAddr(),
-                java.time.LocalDateTime.now()
-        );
+        return toPublicDtos(events);
+    }
 
-        statClientEwm.saveHit(hitDto);
+    @Override
+    public CursorPage<EventDtoFull> getAllEventsPublicAfter(List<Long> categories, Boolean paid, String rangeStart, String rangeEnd, boolean onlyAvailable, String after, Integer size, HttpServletRequest request) {
+        CursorPage.validateSize(size);
+        Instant start = parsePublicRangeStart(rangeStart);
+        Instant end = parsePublicRangeEnd(rangeEnd);
+
+        // пустой курсор - первая страница: всё, что не раньше начала диапазона
+        PageCursor cursor = PageCursor.decode(after);
+        Instant afterDate = cursor.timestamp() != null ? cursor.timestamp() : start;
+        List<Event> events = eventRepository.findAllAfter(categories, paid, onlyAvailable, start, end,
+                afterDate, cursor.id(), State.PUBLISHED, PageRequest.of(0, size));
+
+        eventViewService.registerView(request);
+
+        String next = events.size() == size && !events.isEmpty()
+                ? PageCursor.of(events.get(events.size() - 1).getEventDate(), events.get(events.size() - 1).getId()).encode()
+                : null;
+        return new CursorPage<>(toPublicDtos(events), next);
+    }
 
-        try {
-            Thread.sleep(200); // ждём 200 миллисекунд
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+    private List<EventDtoFull> toPublicDtos(Collection<Event> events) {
+        Map<Long, Long> viewsMap = eventViewService.getViews(
+                events.stream().map(Event::getId).toList());
 
         return events.stream()
                 .map(event -> {
@@ -191,16 +198,28 @@ public class EventServiceImpl implements EventService {
                     UserShortDto initiatorDto = userMapper.toShortDto(event.getInitiator());
                     State state = event.getState();
 
-                    int confirmedRequests = requestRepository.countByEventIdAndStatus(event.getId(), RequestStatus.CONFIRMED).intValue();
+                    long views = viewsMap.getOrDefault(event.getId(), 0L);
 
-                    long views = statClientEwm.getViews(event.getId(),true);
+                    return eventMapper.toFullEventDto(event, categoryDto, initiatorDto, state, views);
+                }).toList();
+    }
 
+    private Instant parsePublicRangeStart(String rangeStart) {
+        try {
+            return rangeStart != null ? Instant.parse(rangeStart)
+                    : Instant.parse("1970-01-01T00:00:00Z"); // начало эпохи Unix
+        } catch (Exception e) {
+            return Instant.parse("1970-01-01T00:00:00Z");
+        }
+    }
 
-                    return eventMapper.toFullEventDto(event, categoryDto, initiatorDto, state, views)
-                            .toBuilder()
-                            .confirmedRequests(confirmedRequests)
-                            .build();
-                }).toList();
+    private Instant parsePublicRangeEnd(String rangeEnd) {
+        try {
+            return rangeEnd != null ? Instant.parse(rangeEnd)
+                    : Instant.parse("3000-12-31T23:59:59Z"); // разумный максимум
+        } catch (Exception e) {
+            return Instant.parse("3000-12-31T23:59:59Z");
+        }
     }
 
     @Override
@@ -208,27 +227,13 @@ public class EventServiceImpl implements EventService {
         Event event = eventRepository.findByIdAndState(eventId, State.PUBLISHED)
                 .orElseThrow(() -> new NotFoundException("События с id = " + eventId + " не найден"));
 
-        HitDtoRequest hitDto = new HitDtoRequest(
-                "ewm-main-service",
-                request.getRequestURI(),
-                request.getRemoteAddr(),
-                LocalDateTime.now()
-        );
-        statClientEwm.saveHit(hitDto);
-
-        try {
-            Thread.sleep(200); // ждём 200 миллисекунд
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-        long views = statClientEwm.getViews(eventId, true);
+        eventViewService.registerView(request);
+        long views = eventViewService.getViews(eventId);
 
         CategoryDto categoryDto = categoryMapper.toDto(event.getCategory());
         UserShortDto initiatorDto = userMapper.toShortDto(event.getInitiator());
 
-        return eventMapper.toFullEventDto(event, categoryDto, initiatorDto, event.getState(), views)
-                .toBuilder()
-                .build();
+        return eventMapper.toFullEventDto(event, categoryDto, initiatorDto, event.getState(), views);
     }
 
     @Override
@@ -237,24 +242,15 @@ public class EventServiceImpl implements EventService {
 
         List<Event> events = eventRepository.findAllByInitiatorId(userId, pageRequest);
 
-        Map<Long, Long> confirmedRequests = events.stream()
-                .collect(Collectors.toMap(
-                        Event::getId,
-                        e -> requestRepository.countByEventIdAndStatus(e.getId(), RequestStatus.CONFIRMED)
-                ));
-
-        Map<Long, Long> views = events.stream()
-                .collect(Collectors.toMap(
-                        Event::getId,
-                        e -> statClientEwm.getViews(e.getId(), true)
-                ));
+        Map<Long, Long> views = eventViewService.getViews(
+                events.stream().map(Event::getId).toList());
 
         return events.stream()
                 .map(event -> eventMapper.toShortEventDto(
                         event,
                         categoryMapper.toDto(event.getCategory()),
                         userMapper.toShortDto(event.getInitiator()),
-                        confirmedRequests.getOrDefault(event.getId(), 0L).intValue(),
+                        event.getConfirmedRequests(),
                         views.getOrDefault(event.getId(), 0L)
                 ))
                 .toList();
@@ -317,6 +313,7 @@ public class EventServiceImpl implements EventService {
         }
 
         Event updatedEvent = eventRepository.save(oldEvent);
+        pinnedCompilationsView.markEventChanged(updatedEvent.getId());
 
         CategoryDto categoryDto = categoryMapper.toDto(updatedEvent.getCategory());
         UserShortDto userShortDto = userMapper.toShortDto(updatedEvent.getInitiator());
@@ -339,6 +336,22 @@ public class EventServiceImpl implements EventService {
                 .orElseThrow(() -> new NotFoundException("События с id = " + eventId + " не найдено"));
     }
 
+    private void validateSort(String sort) {
+        if (sort != null && !SORT_EVENT_DATE.equals(sort) && !SORT_VIEWS.equals(sort)) {
+            throw new ConditionsNotMetException("Параметр sort может быть только EVENT_DATE или VIEWS");
+        }
+    }
+
+    private Sort toSort(String sort) {
+        if (SORT_VIEWS.equals(sort)) {
+            return Sort.by(Sort.Direction.DESC, "views").and(Sort.by("id"));
+        }
+        if (SORT_EVENT_DATE.equals(sort)) {
+            return Sort.by("eventDate").and(Sort.by("id"));
+        }
+        return Sort.unsorted();
+    }
+
     private void validate(NewEventDto newEventDto) {
         // Обратите внимание: дата и время на которые намечено событие не может быть раньше, чем через два часа от текущего момента
         if (newEventDto.getAnnotation() == null || newEventDto.getAnnotation().isBlank()) {
@@ -0,0 +1,35 @@
+package ru.practicum.ewmservice.pagination;
+
+import org.springframework.http.ResponseEntity;
+import ru.practicum.ewmservice.exception.ConditionsNotMetException;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+// Страница keyset-пагинации; nextCursor равен null, если элементов больше нет
+public record CursorPage<T>(List<T> items, String nextCursor) {
+
+    // Общая проверка для всех курсорных эндпоинтов, до PageRequest.of с его собственным сообщением
+    public static void validateSize(Integer size) {
+        if (size == null || size <= 0) {
+            throw new ConditionsNotMetException("Размер страницы должен быть больше нуля");
+        }
+    }
+
+    public static <E, T> CursorPage<T> of(List<E> entities, int size, Function<E, T> mapper,
+                                          Function<E, PageCursor> cursor) {
+        String next = entities.size() == size && !entities.isEmpty()
+                ? cursor.apply(entities.get(entities.size() - 1)).encode()
+                : null;
+        return new CursorPage<>(entities.stream().map(mapper).toList(), next);
+    }
+
+    public ResponseEntity<Collection<T>> toResponse() {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (nextCursor != null) {
+            response.header(PageCursor.NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return response.body(items);
+    }
+}
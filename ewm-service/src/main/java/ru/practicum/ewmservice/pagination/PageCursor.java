@@ -0,0 +1,45 @@
+package ru.practicum.ewmservice.pagination;
+
+import ru.practicum.ewmservice.exception.ConditionsNotMetException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+// Непрозрачный курсор для keyset-пагинации: позиция последнего отданного элемента (ключ сортировки и id)
+public record PageCursor(Instant timestamp, long id) {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final PageCursor START = new PageCursor(null, 0L);
+
+    public static PageCursor ofId(long id) {
+        return new PageCursor(null, id);
+    }
+
+    public static PageCursor of(Instant timestamp, long id) {
+        return new PageCursor(timestamp, id);
+    }
+
+    // Пустой курсор означает первую страницу
+    public static PageCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return START;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.indexOf(',');
+            if (separator < 0) {
+                return ofId(Long.parseLong(value));
+            }
+            return of(Instant.parse(value.substring(0, separator)), Long.parseLong(value.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new ConditionsNotMetException("Некорректный курсор пагинации: " + token);
+        }
+    }
+
+    public String encode() {
+        String value = timestamp == null ? String.valueOf(id) : timestamp + "," + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -11,7 +11,8 @@ import ru.practicum.ewmservice.user.model.User;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "requests")
+@Table(name = "requests",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"requester_id", "event_id"}))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -4,7 +4,6 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
-import ru.practicum.ewmservice.events.model.Event;
 import ru.practicum.ewmservice.request.model.Request;
 import ru.practicum.ewmservice.request.model.RequestStatus;
 
@@ -1,8 +1,10 @@
 package ru.practicum.ewmservice.request.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.ewmservice.compilation.service.PinnedCompilationsView;
 import ru.practicum.ewmservice.events.model.Event;
 import ru.practicum.ewmservice.events.model.State;
 import ru.practicum.ewmservice.events.repository.EventRepository;
@@ -34,19 +36,24 @@ public class RequestServiceImpl implements RequestService {
     private final UserRepository userRepository;
     private final EventRepository eventRepository;
     private final RequestMapper requestMapper;
+    private final PinnedCompilationsView pinnedCompilationsView;
 
 
     @Override
+    @Transactional
     public ParticipationRequestDto createUserRequest(Long userId, Long eventId) {
         User user = getUserIfExists(userId);
         Event event = getEventIfExists(eventId);
 
         validate(user, event);
-        RequestStatus status;
-        if (event.getParticipantLimit() == 0) {
+        // место занимается условным UPDATE, поэтому параллельные заявки не превысят лимит
+        RequestStatus status = RequestStatus.PENDING;
+        if (event.getParticipantLimit() == 0 || Boolean.FALSE.equals(event.getRequestModeration())) {
+            if (eventRepository.incrementConfirmedRequests(eventId) == 0) {
+                throw new ConflictException("Достигнут лимит участников для события");
+            }
             status = RequestStatus.CONFIRMED;
-        } else {
-            status = RequestStatus.PENDING;
+            pinnedCompilationsView.markEventChanged(eventId);
         }
         Request newRequest = new Request();
         newRequest.setRequester(user);
@@ -55,7 +62,11 @@ public class RequestServiceImpl implements RequestService {
         newRequest.setCreated(now);
         newRequest.setStatus(status);
 
-        return requestMapper.toDto(requestRepository.save(newRequest));
+        try {
+            return requestMapper.toDto(requestRepository.saveAndFlush(newRequest));
+        } catch (DataIntegrityViolationException e) {
+            throw new ConflictException("Нельзя добавить повторный запрос");
+        }
     }
 
     @Override
@@ -106,8 +117,7 @@ public class RequestServiceImpl implements RequestService {
             throw new ConflictException("Подтверждение заявок не требуется для этого события");
         }
 
-        Long confirmedRequests = requestRepository.countByEventIdAndStatus(event.getId(), RequestStatus.CONFIRMED);
-        if (event.getParticipantLimit() > 0 && confirmedRequests >= event.getParticipantLimit()) {
+        if (event.getParticipantLimit() > 0 && event.getConfirmedRequests() >= event.getParticipantLimit()) {
             throw new ConflictException("Достигнут лимит участников события");
         }
 
@@ -132,9 +142,8 @@ public class RequestServiceImpl implements RequestService {
             }
 
             if (updateRequest.getStatus() == RequestStatus.CONFIRMED) {
-                if (confirmedRequests < event.getParticipantLimit()) {
+                if (eventRepository.incrementConfirmedRequests(eventId) > 0) {
                     request.setStatus(RequestStatus.CONFIRMED);
-                    confirmedRequests++;
                     confirmed.add(requestMapper.toDto(request));
                 } else {
                     request.setStatus(RequestStatus.REJECTED);
@@ -147,6 +156,9 @@ public class RequestServiceImpl implements RequestService {
         }
 
         requestRepository.saveAll(requests);
+        if (!confirmed.isEmpty()) {
+            pinnedCompilationsView.markEventChanged(eventId);
+        }
 
         return RequestDtoForUpdResponse.builder()
                 .confirmedRequests(confirmed)
@@ -155,6 +167,7 @@ public class RequestServiceImpl implements RequestService {
     }
 
     @Override
+    @Transactional
     public ParticipationRequestDto cancelUserRequest(Long userId, Long requestId) {
         User user = getUserIfExists(userId);
         Request request = getRequestIfExists(requestId);
@@ -163,6 +176,10 @@ public class RequestServiceImpl implements RequestService {
             throw new ConditionsNotMetException("Пользователь не является владельцем запроса");
         }
 
+        if (request.getStatus() == RequestStatus.CONFIRMED) {
+            eventRepository.decrementConfirmedRequests(request.getEvent().getId());
+            pinnedCompilationsView.markEventChanged(request.getEvent().getId());
+        }
         request.setStatus(RequestStatus.CANCELED);
         return requestMapper.toDto(requestRepository.save(request));
     }
@@ -196,12 +213,7 @@ public class RequestServiceImpl implements RequestService {
             throw new ConflictException("Нельзя добавить повторный запрос");
         }
 
-        long totalRequests = requestRepository.countByEventIdAndStatusIn(
-                event.getId(),
-                List.of(RequestStatus.CONFIRMED, RequestStatus.PENDING)
-        );
-
-        if (event.getParticipantLimit() > 0 && totalRequests >= event.getParticipantLimit()) {
+        if (event.getParticipantLimit() > 0 && event.getConfirmedRequests() >= event.getParticipantLimit()) {
             throw new ConflictException("Достигнут лимит участников для события");
         }
     }
@@ -1,19 +1,105 @@
 package ru.practicum.ewmservice.stat.client;
 
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
 
 @Configuration
 public class AppConfig {
-    private String url;
 
-    public String getUrl() {
-        return url;
+    // Пул соединений к серверу статистики: keep-alive вместо нового соединения на каждый вызов
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider statConnectionProvider(
+            @Value("${stat.client.max-connections:100}") int maxConnections,
+            @Value("${stat.client.pending-acquire-timeout-ms:1000}") long pendingAcquireTimeoutMs,
+            @Value("${stat.client.max-idle-time-ms:30000}") long maxIdleTimeMs) {
+        return ConnectionProvider.builder("stat-server")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofMillis(maxIdleTimeMs))
+                .build();
+    }
+
+    @Bean
+    public WebClient statWebClient(WebClient.Builder builder,
+                                   ConnectionProvider statConnectionProvider,
+                                   @Value("${stat.server.url}") String statServerUrl,
+                                   @Value("${stat.client.connect-timeout-ms:1000}") int connectTimeoutMs,
+                                   @Value("${stat.client.response-timeout-ms:3000}") long responseTimeoutMs,
+                                   @Value("${stat.client.http2:false}") boolean http2) {
+        HttpClient httpClient = HttpClient.create(statConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs))
+                .protocol(http2
+                        ? new HttpProtocol[]{HttpProtocol.H2C, HttpProtocol.HTTP11}
+                        : new HttpProtocol[]{HttpProtocol.HTTP11});
+        return builder
+                .baseUrl(statServerUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
+    // Размыкатель по доле ошибок и медленных ответов: при деградации сервера статистики вызовы
+    // сразу уходят в запасной ответ, а не ждут таймаута
+    @Bean
+    public CircuitBreaker statCircuitBreaker(
+            MeterRegistry meterRegistry,
+            @Value("${stat.client.breaker.failure-rate-threshold:50}") float failureRateThreshold,
+            @Value("${stat.client.breaker.slow-call-rate-threshold:50}") float slowCallRateThreshold,
+            @Value("${stat.client.breaker.slow-call-duration-ms:500}") long slowCallDurationMs,
+            @Value("${stat.client.breaker.sliding-window-size:20}") int slidingWindowSize,
+            @Value("${stat.client.breaker.minimum-number-of-calls:10}") int minimumNumberOfCalls,
+            @Value("${stat.client.breaker.wait-in-open-state-ms:10000}") long waitInOpenStateMs,
+            @Value("${stat.client.breaker.half-open-calls:3}") int halfOpenCalls) {
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallRateThreshold(slowCallRateThreshold)
+                .slowCallDurationThreshold(Duration.ofMillis(slowCallDurationMs))
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumNumberOfCalls)
+                .waitDurationInOpenState(Duration.ofMillis(waitInOpenStateMs))
+                .permittedNumberOfCallsInHalfOpenState(halfOpenCalls)
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                // ответы 4xx - ошибка запроса, а не сервера; переполненный bulkhead - локальная перегрузка
+                .recordException(e -> !(e instanceof WebClientResponseException response
+                        && response.getStatusCode().is4xxClientError()))
+                .ignoreExceptions(BulkheadFullException.class)
+                .build();
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry.circuitBreaker("stat-server");
     }
 
+    // Ограничение одновременных вызовов: медленный сервер статистики не занимает все потоки запросов
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public Bulkhead statBulkhead(MeterRegistry meterRegistry,
+                                 @Value("${stat.client.bulkhead.max-concurrent-calls:50}") int maxConcurrentCalls,
+                                 @Value("${stat.client.bulkhead.max-wait-ms:0}") long maxWaitMs) {
+        BulkheadConfig config = BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(Duration.ofMillis(maxWaitMs))
+                .build();
+        BulkheadRegistry registry = BulkheadRegistry.of(config);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+        return registry.bulkhead("stat-server");
     }
 }
@@ -0,0 +1,71 @@
+package ru.practicum.ewmservice.stat.client;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewmservice.stat.dto.HitDtoRequest;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Хиты, которые уже приняты к отправке, но ещё не дошли до сервера статистики.
+// Чтобы не посчитать уникального посетителя дважды, запоминаются недавно отправленные пары uri + ip
+@Component
+public class PendingHits {
+
+    private final Map<String, Map<String, Integer>> pending = new ConcurrentHashMap<>();
+    private final Set<String> recentlySent;
+
+    public PendingHits(@Value("${stat.views.recent-visitors:100000}") int recentVisitors) {
+        this.recentlySent = Collections.newSetFromMap(Collections.synchronizedMap(
+                new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                        return size() > recentVisitors;
+                    }
+                }));
+    }
+
+    public void add(HitDtoRequest hit) {
+        pending.computeIfAbsent(hit.uri(), uri -> new ConcurrentHashMap<>())
+                .merge(hit.ip(), 1, Integer::sum);
+    }
+
+    public void sent(Collection<HitDtoRequest> hits) {
+        for (HitDtoRequest hit : hits) {
+            recentlySent.add(visitorKey(hit.uri(), hit.ip()));
+            remove(hit);
+        }
+    }
+
+    public void discarded(Collection<HitDtoRequest> hits) {
+        hits.forEach(this::remove);
+    }
+
+    public long pendingViews(String uri, boolean unique) {
+        Map<String, Integer> ips = pending.get(uri);
+        if (ips == null) {
+            return 0;
+        }
+        if (!unique) {
+            return ips.values().stream().mapToLong(Integer::longValue).sum();
+        }
+        return ips.keySet().stream()
+                .filter(ip -> !recentlySent.contains(visitorKey(uri, ip)))
+                .count();
+    }
+
+    private void remove(HitDtoRequest hit) {
+        pending.computeIfPresent(hit.uri(), (uri, ips) -> {
+            ips.computeIfPresent(hit.ip(), (ip, count) -> count > 1 ? count - 1 : null);
+            return ips.isEmpty() ? null : ips;
+        });
+    }
+
+    private String visitorKey(String uri, String ip) {
+        return uri + " " + ip;
+    }
+}
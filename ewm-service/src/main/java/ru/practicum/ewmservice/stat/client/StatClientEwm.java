@@ -1,73 +1,305 @@
 package ru.practicum.ewmservice.stat.client;
 
 
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import ru.practicum.ewmservice.stat.dto.HitDtoRequest;
 import ru.practicum.ewmservice.stat.dto.HitDtoStatResponse;
+import ru.practicum.ewmservice.stat.dto.HitDtoViewsRequest;
 
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
+// Синхронные методы блокируют вызывающий поток на неблокирующем клиенте, *Async-варианты возвращают CompletableFuture.
+// Каждый вызов идёт через bulkhead, общий таймаут и размыкатель; просмотры при сбое берутся из последних известных значений
 @Component
 @Slf4j
 public class StatClientEwm {
 
-    private final RestTemplate restTemplate;
-    private final String statServerUrl;
+    private static final String EVENTS_URI = "/events/";
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final LocalDateTime VIEWS_START = LocalDateTime.of(2000, 1, 1, 0, 0);
 
-    public StatClientEwm(RestTemplate restTemplate, @Value("${stat.server.url}") String statServerUrl) {
-        this.restTemplate = restTemplate;
-        this.statServerUrl = statServerUrl;
+    private final WebClient webClient;
+    private final ViewsCache viewsCache;
+    private final int chunkSize;
+    private final int parallelism;
+    private final Duration callTimeout;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+
+    public StatClientEwm(WebClient statWebClient,
+                         ViewsCache viewsCache,
+                         CircuitBreaker statCircuitBreaker,
+                         Bulkhead statBulkhead,
+                         @Value("${stat.views.fanout.chunk-size:100}") int chunkSize,
+                         @Value("${stat.views.fanout.parallelism:4}") int parallelism,
+                         @Value("${stat.client.call-timeout-ms:1500}") long callTimeoutMs) {
+        this.webClient = statWebClient;
+        this.viewsCache = viewsCache;
+        this.circuitBreaker = statCircuitBreaker;
+        this.bulkhead = statBulkhead;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.callTimeout = Duration.ofMillis(callTimeoutMs);
     }
 
     public void saveHit(HitDtoRequest hit) {
-        log.info("Сохраняем HIT = {}, {}, {}, {}", hit.app(), hit.ip(), hit.uri(), hit.timestamp());
-        restTemplate.postForEntity(statServerUrl + "/hit", hit, Void.class);
+        postHit(hit).block();
+    }
+
+    public CompletableFuture<Void> saveHitAsync(HitDtoRequest hit) {
+        return postHit(hit).toFuture();
+    }
+
+    public void saveHits(List<HitDtoRequest> hits) {
+        postHits(hits).block();
+    }
+
+    public CompletableFuture<Void> saveHitsAsync(List<HitDtoRequest> hits) {
+        return postHits(hits).toFuture();
     }
 
     public List<HitDtoStatResponse> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        return stats(start, end, uris, unique).block();
+    }
+
+    public CompletableFuture<List<HitDtoStatResponse>> getStatsAsync(LocalDateTime start, LocalDateTime end,
+                                                                     List<String> uris, Boolean unique) {
+        return stats(start, end, uris, unique).toFuture();
+    }
+
+    public long getViews(Long eventId, Boolean unique) {
+        return views(eventId, unique).block();
+    }
+
+    public CompletableFuture<Long> getViewsAsync(Long eventId, Boolean unique) {
+        return views(eventId, unique).toFuture();
+    }
+
+    // Из сервера статистики запрашиваются только события, которых нет в кэше.
+    // События из неудавшихся запросов в результат не попадают, вызывающий сам решает, считать ли их нулём
+    public Map<Long, Long> getViews(Collection<Long> eventIds, Boolean unique) {
+        return views(eventIds, unique).block();
+    }
+
+    public CompletableFuture<Map<Long, Long>> getViewsAsync(Collection<Long> eventIds, Boolean unique) {
+        return views(eventIds, unique).toFuture();
+    }
+
+    // Для фоновых задач: всегда идёт на сервер и не читает и не наполняет кэш пользовательских запросов.
+    // События из неудавшихся пачек в результат не попадают
+    public Map<Long, Long> getViewsUncached(Collection<Long> eventIds, Boolean unique) {
+        if (eventIds == null || eventIds.isEmpty()) {
+            return Map.of();
+        }
+        return fetchViews(new ArrayList<>(eventIds), Boolean.TRUE.equals(unique), false).block();
+    }
+
+    private Mono<Void> postHit(HitDtoRequest hit) {
+        log.info("Сохраняем HIT = {}, {}, {}, {}", hit.app(), hit.ip(), hit.uri(), hit.timestamp());
+        return webClient.post()
+                .uri("/hit")
+                .bodyValue(hit)
+                .retrieve()
+                .toBodilessEntity()
+                .then()
+                .transform(this::guarded);
+    }
 
-        StringBuilder url = new StringBuilder(statServerUrl + "/stats?start={start}&end={end}");
+    private Mono<Void> postHits(List<HitDtoRequest> hits) {
+        log.info("Сохраняем пачку из {} HIT", hits.size());
+        return webClient.post()
+                .uri("/hits")
+                .bodyValue(hits)
+                .retrieve()
+                .toBodilessEntity()
+                .then()
+                .transform(this::guarded);
+    }
 
-        Map<String, Object> params = new HashMap<>();
-        params.put("start", start.format(formatter));
-        params.put("end", end.format(formatter));
+    private Mono<List<HitDtoStatResponse>> stats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique) {
+        return webClient.get()
+                .uri(uriBuilder -> {
+                    uriBuilder.path("/stats")
+                            .queryParam("start", start.format(FORMATTER))
+                            .queryParam("end", end.format(FORMATTER));
+                    if (uris != null && !uris.isEmpty()) {
+                        uriBuilder.queryParam("uris", String.join(",", uris));
+                    }
+                    if (unique != null) {
+                        uriBuilder.queryParam("unique", unique);
+                    }
+                    return uriBuilder.build();
+                })
+                .retrieve()
+                .bodyToFlux(HitDtoStatResponse.class)
+                .collectList()
+                .transform(this::guarded);
+    }
 
-        if (uris != null && !uris.isEmpty()) {
-            url.append("&uris={uris}");
-            params.put("uris", String.join(",", uris));
+    private Mono<Long> views(Long eventId, Boolean unique) {
+        String uri = EVENTS_URI + eventId;
+        boolean isUnique = Boolean.TRUE.equals(unique);
+        Long cached = viewsCache.get(uri, isUnique);
+        if (cached != null) {
+            return Mono.just(cached);
         }
-        if (unique != null) {
-            url.append("&unique={unique}");
-            params.put("unique", unique.toString());
+
+        long generation = viewsCache.generation(uri);
+        return stats(VIEWS_START, LocalDateTime.now(), List.of(uri), unique)
+                .map(stats -> stats.stream()
+                        .mapToLong(HitDtoStatResponse::hits)
+                        .sum())
+                .doOnNext(views -> viewsCache.put(uri, isUnique, views, generation))
+                .onErrorResume(e -> {
+                    logFallback("просмотры события " + eventId, e);
+                    Long lastKnown = viewsCache.getLastKnown(uri, isUnique);
+                    return Mono.just(lastKnown != null ? lastKnown : 0L);
+                });
+    }
+
+    // Промахи кэша делятся на пачки, которые запрашиваются параллельно (не более parallelism сразу),
+    // поэтому задержка равна самой долгой пачке, а не их сумме. Для пачки, упавшей или не успевшей за call-timeout-ms,
+    // подставляются последние известные значения, события без них пропускаются
+    private Mono<Map<Long, Long>> views(Collection<Long> eventIds, Boolean unique) {
+        if (eventIds == null || eventIds.isEmpty()) {
+            return Mono.just(Map.of());
         }
 
-        ResponseEntity<HitDtoStatResponse[]> response = restTemplate.getForEntity(
-                url.toString(),
-                HitDtoStatResponse[].class,
-                params
-        );
+        boolean isUnique = Boolean.TRUE.equals(unique);
+        Map<Long, Long> views = new HashMap<>();
+        Map<String, Long> cached = viewsCache.getAll(eventIds.stream().map(id -> EVENTS_URI + id).toList(), isUnique);
+        List<Long> missing = new ArrayList<>();
+        for (Long eventId : eventIds) {
+            Long cachedViews = cached.get(EVENTS_URI + eventId);
+            if (cachedViews != null) {
+                views.put(eventId, cachedViews);
+            } else {
+                missing.add(eventId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return Mono.just(views);
+        }
 
-        HitDtoStatResponse[] body = response.getBody();
-        return body != null ? List.of(body) : List.of();
+        return fetchViews(missing, isUnique, true)
+                .map(fetched -> {
+                    views.putAll(fetched);
+                    return views;
+                });
     }
 
-    public long getViews(Long eventId, Boolean unique) {
-        LocalDateTime start = LocalDateTime.of(2000, 1, 1, 0, 0);
-        LocalDateTime end = LocalDateTime.now();
+    // cached = false - ответы не кладутся в кэш, а вместо упавших пачек ничего не подставляется
+    private Mono<Map<Long, Long>> fetchViews(List<Long> eventIds, boolean unique, boolean cached) {
+        Map<Long, Long> generations = new HashMap<>();
+        if (cached) {
+            eventIds.forEach(eventId -> generations.put(eventId, viewsCache.generation(EVENTS_URI + eventId)));
+        }
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < eventIds.size(); from += chunkSize) {
+            chunks.add(eventIds.subList(from, Math.min(from + chunkSize, eventIds.size())));
+        }
+        return Flux.fromIterable(chunks)
+                .flatMap(chunk -> fetchChunk(chunk, unique)
+                        .doOnNext(chunkViews -> {
+                            if (cached) {
+                                chunkViews.forEach((eventId, eventViews) ->
+                                        viewsCache.put(EVENTS_URI + eventId, unique, eventViews,
+                                                generations.getOrDefault(eventId, -1L)));
+                            }
+                        })
+                        .onErrorResume(e -> {
+                            logFallback("просмотры " + chunk.size() + " событий", e);
+                            return Mono.just(cached ? lastKnownViews(chunk, unique) : Map.of());
+                        }), parallelism)
+                .reduce(new HashMap<>(), (result, chunkViews) -> {
+                    result.putAll(chunkViews);
+                    return result;
+                });
+    }
+
+    // Запасные значения не кладутся в кэш со свежими просмотрами, чтобы следующий запрос снова сходил на сервер
+    private Map<Long, Long> lastKnownViews(List<Long> eventIds, boolean unique) {
+        Map<Long, Long> views = new HashMap<>();
+        for (Long eventId : eventIds) {
+            Long lastKnown = viewsCache.getLastKnown(EVENTS_URI + eventId, unique);
+            if (lastKnown != null) {
+                views.put(eventId, lastKnown);
+            }
+        }
+        return views;
+    }
 
-        List<HitDtoStatResponse> stats = getStats(start, end, List.of("/events/" + eventId), unique);
+    // Bulkhead ближе всего к вызову, размыкатель снаружи: он учитывает и таймауты, и отказы bulkhead не считает сбоем сервера
+    private <T> Mono<T> guarded(Mono<T> call) {
+        return call
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                .timeout(callTimeout)
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker));
+    }
 
-        return stats.stream()
-                .mapToLong(HitDtoStatResponse::hits)
-                .sum();
+    // При разомкнутом размыкателе каждый вызов сразу отклоняется, такие отказы не засоряют лог
+    private void logFallback(String what, Throwable e) {
+        if (e instanceof CallNotPermittedException) {
+            log.debug("Сервер статистики недоступен, {} взяты из последних известных значений", what);
+        } else {
+            log.warn("Не удалось получить {}: {}", what, e.getMessage());
+        }
     }
-}
 
+    // У событий без просмотров в ответе нет строки, для них явно ставится 0
+    private Mono<Map<Long, Long>> fetchChunk(List<Long> eventIds, boolean unique) {
+        HitDtoViewsRequest request = new HitDtoViewsRequest(
+                VIEWS_START.format(FORMATTER),
+                LocalDateTime.now().format(FORMATTER),
+                eventIds.stream().map(id -> EVENTS_URI + id).toList(),
+                unique
+        );
+
+        return webClient.post()
+                .uri("/stats/views")
+                .bodyValue(request)
+                .retrieve()
+                .bodyToFlux(HitDtoStatResponse.class)
+                .collectList()
+                .transform(this::guarded)
+                .map(stats -> {
+                    Map<Long, Long> views = new HashMap<>();
+                    for (HitDtoStatResponse stat : stats) {
+                        Long eventId = toEventId(stat.uri());
+                        if (eventId != null) {
+                            views.merge(eventId, stat.hits(), Long::sum);
+                        }
+                    }
+                    for (Long eventId : eventIds) {
+                        views.putIfAbsent(eventId, 0L);
+                    }
+                    return views;
+                });
+    }
+
+    private Long toEventId(String uri) {
+        if (uri == null || !uri.startsWith(EVENTS_URI)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(uri.substring(EVENTS_URI.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package ru.practicum.ewmservice.stat.client;
+
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewmservice.stat.dto.HitDtoRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Хиты складываются в ограниченную очередь и отправляются фоновым потоком пачками,
+// при переполнении новый хит отбрасывается, чтобы не тормозить публичные эндпоинты.
+// Пачка, отклонённая размыкателем или bulkhead до отправки, не теряется: она и очередь ждут,
+// пока размыкатель не перейдёт в полуоткрытое состояние. Потери видны только как переполнение очереди
+@Component
+@Slf4j
+public class StatHitPublisher {
+
+    private final StatClientEwm statClientEwm;
+    private final PendingHits pendingHits;
+    private final ViewsCache viewsCache;
+    private final ViewedEvents viewedEvents;
+    private final BlockingQueue<HitDtoRequest> queue;
+    private final int batchSize;
+    private final ScheduledExecutorService flusher;
+    private final Counter sent;
+    private final Counter dropped;
+    private final Counter failed;
+    private final Counter requeued;
+    // Отклонённая пачка; используется только потоком stat-hit-flusher
+    private List<HitDtoRequest> rejected;
+
+    public StatHitPublisher(StatClientEwm statClientEwm,
+                            PendingHits pendingHits,
+                            ViewsCache viewsCache,
+                            ViewedEvents viewedEvents,
+                            MeterRegistry meterRegistry,
+                            @Value("${stat.hits.queue-capacity:10000}") int queueCapacity,
+                            @Value("${stat.hits.batch-size:100}") int batchSize,
+                            @Value("${stat.hits.flush-interval-ms:100}") long flushIntervalMs) {
+        this.statClientEwm = statClientEwm;
+        this.pendingHits = pendingHits;
+        this.viewsCache = viewsCache;
+        this.viewedEvents = viewedEvents;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.sent = meterRegistry.counter("stat.hits.sent");
+        this.dropped = meterRegistry.counter("stat.hits.dropped");
+        this.failed = meterRegistry.counter("stat.hits.failed");
+        this.requeued = meterRegistry.counter("stat.hits.requeued");
+        Gauge.builder("stat.hits.queued", queue, BlockingQueue::size).register(meterRegistry);
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stat-hit-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean publish(HitDtoRequest hit) {
+        pendingHits.add(hit);
+        if (queue.offer(hit)) {
+            return true;
+        }
+        pendingHits.discarded(List.of(hit));
+        dropped.increment();
+        log.warn("Очередь хитов переполнена, HIT {} отброшен", hit.uri());
+        return false;
+    }
+
+    // Пока размыкатель отклоняет вызовы, очередь не разбирается: первой снова уйдёт отклонённая пачка
+    void flush() {
+        if (rejected != null) {
+            if (!send(rejected)) {
+                return;
+            }
+            rejected = null;
+        }
+        List<HitDtoRequest> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            if (!send(batch)) {
+                rejected = batch;
+                requeued.increment(batch.size());
+                return;
+            }
+            batch = new ArrayList<>(batchSize);
+        }
+    }
+
+    // false - вызов отклонён до отправки и пачку можно повторить без риска задвоить хиты.
+    // Прочие ошибки (таймаут, ответ сервера) повторять нельзя: сервер мог уже сохранить пачку
+    private boolean send(List<HitDtoRequest> batch) {
+        try {
+            statClientEwm.saveHits(batch);
+            // сначала сбрасываем кэш, чтобы после ухода хитов из pendingHits не отдать старое число
+            List<String> uris = batch.stream().map(HitDtoRequest::uri).distinct().toList();
+            viewsCache.invalidate(uris);
+            viewedEvents.markViewed(uris);
+            pendingHits.sent(batch);
+            sent.increment(batch.size());
+        } catch (CallNotPermittedException | BulkheadFullException e) {
+            return false;
+        } catch (RuntimeException e) {
+            pendingHits.discarded(batch);
+            failed.increment(batch.size());
+            log.warn("Не удалось отправить {} HIT в статистику: {}", batch.size(), e.getMessage());
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        // Хиты, которые так и не удалось отправить до остановки, учитываются как отброшенные
+        List<HitDtoRequest> unsent = new ArrayList<>();
+        if (rejected != null) {
+            unsent.addAll(rejected);
+        }
+        queue.drainTo(unsent);
+        if (!unsent.isEmpty()) {
+            pendingHits.discarded(unsent);
+            dropped.increment(unsent.size());
+            log.warn("Сервер статистики недоступен при остановке, {} HIT отброшено", unsent.size());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package ru.practicum.ewmservice.stat.client;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// События, хиты которых дошли до сервера статистики после прошлого обновления events.views.
+// Каждый экземпляр помнит только отправленные им хиты, поэтому каждый обновляет свои события
+@Component
+public class ViewedEvents {
+
+    private static final String EVENTS_URI = "/events/";
+
+    private final Set<Long> eventIds = ConcurrentHashMap.newKeySet();
+
+    public void markViewed(Collection<String> uris) {
+        for (String uri : uris) {
+            if (uri == null || !uri.startsWith(EVENTS_URI)) {
+                continue;
+            }
+            try {
+                eventIds.add(Long.parseLong(uri.substring(EVENTS_URI.length())));
+            } catch (NumberFormatException e) {
+                // uri вида /events без id - хит списка, а не события
+            }
+        }
+    }
+
+    // Возврат событий, которые не удалось обновить, до следующего прохода
+    public void markAll(Collection<Long> ids) {
+        eventIds.addAll(ids);
+    }
+
+    // Забирает накопленные id по возрастанию
+    public List<Long> drain() {
+        List<Long> drained = new ArrayList<>();
+        Iterator<Long> iterator = eventIds.iterator();
+        while (iterator.hasNext()) {
+            drained.add(iterator.next());
+            iterator.remove();
+        }
+        Collections.sort(drained);
+        return drained;
+    }
+}
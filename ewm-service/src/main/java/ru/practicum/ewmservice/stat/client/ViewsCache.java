@@ -0,0 +1,103 @@
+package ru.practicum.ewmservice.stat.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Кэш просмотров из сервера статистики по ключу (uri, unique).
+// Ограничен по размеру и времени жизни, записи сбрасываются после отправки хитов по этим uri.
+// Попадания и промахи доступны в actuator как cache.gets{cache=stat.views}.
+// Отдельно хранится последнее полученное значение без TTL - его отдаём, когда сервер статистики недоступен.
+// Поколения упорядочивают сброс и запись: значение, запрошенное до invalidate, не попадает в кэш после него
+@Component
+public class ViewsCache {
+
+    // Счётчики поколений разбиты на полосы по хэшу uri, чтобы не хранить счётчик на каждый uri.
+    // Совпадение полос даёт лишь лишний промах, а не устаревшее значение
+    private static final int GENERATION_STRIPES = 4096;
+
+    private final Cache<Key, Long> cache;
+    private final Cache<Key, Long> lastKnown;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    public ViewsCache(MeterRegistry meterRegistry,
+                      @Value("${stat.views.cache.maximum-size:10000}") long maximumSize,
+                      @Value("${stat.views.cache.ttl-ms:5000}") long ttlMs,
+                      @Value("${stat.views.cache.last-known-size:100000}") long lastKnownSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        this.lastKnown = Caffeine.newBuilder()
+                .maximumSize(lastKnownSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "stat.views");
+        CaffeineCacheMetrics.monitor(meterRegistry, lastKnown, "stat.views.last-known");
+    }
+
+    public Long get(String uri, boolean unique) {
+        return cache.getIfPresent(new Key(uri, unique));
+    }
+
+    // Возвращает найденные значения, отсутствующие uri в результат не попадают
+    public Map<String, Long> getAll(Collection<String> uris, boolean unique) {
+        Map<String, Long> found = new HashMap<>();
+        for (String uri : uris) {
+            Long views = cache.getIfPresent(new Key(uri, unique));
+            if (views != null) {
+                found.put(uri, views);
+            }
+        }
+        return found;
+    }
+
+    // Снимается до запроса к серверу статистики и передаётся в put вместе с ответом
+    public long generation(String uri) {
+        return generations.get(stripe(uri));
+    }
+
+    // Повторная проверка после записи закрывает гонку с invalidate, пришедшим между проверкой и put
+    public void put(String uri, boolean unique, long views, long generation) {
+        Key key = new Key(uri, unique);
+        lastKnown.put(key, views);
+        int stripe = stripe(uri);
+        if (generations.get(stripe) != generation) {
+            return;
+        }
+        cache.put(key, views);
+        if (generations.get(stripe) != generation) {
+            cache.invalidate(key);
+        }
+    }
+
+    public Long getLastKnown(String uri, boolean unique) {
+        return lastKnown.getIfPresent(new Key(uri, unique));
+    }
+
+    // Последние известные значения не сбрасываются: они нужны как запасной ответ
+    public void invalidate(Collection<String> uris) {
+        for (String uri : uris) {
+            generations.incrementAndGet(stripe(uri));
+            cache.invalidate(new Key(uri, true));
+            cache.invalidate(new Key(uri, false));
+        }
+    }
+
+    private static int stripe(String uri) {
+        return Math.floorMod(uri.hashCode(), GENERATION_STRIPES);
+    }
+
+    private record Key(String uri, boolean unique) {
+    }
+}
@@ -0,0 +1,10 @@
+package ru.practicum.ewmservice.stat.dto;
+
+import java.util.List;
+
+public record HitDtoViewsRequest(
+        String start,
+        String end,
+        List<String> uris,
+        boolean unique
+) {}
@@ -0,0 +1,17 @@
+package ru.practicum.ewmservice.stat.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Map;
+
+@Service
+public interface EventViewService {
+
+    void registerView(HttpServletRequest request);
+
+    long getViews(Long eventId);
+
+    Map<Long, Long> getViews(Collection<Long> eventIds);
+}
@@ -0,0 +1,55 @@
+package ru.practicum.ewmservice.stat.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import ru.practicum.ewmservice.stat.client.PendingHits;
+import ru.practicum.ewmservice.stat.client.StatClientEwm;
+import ru.practicum.ewmservice.stat.client.StatHitPublisher;
+import ru.practicum.ewmservice.stat.dto.HitDtoRequest;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+// Просмотры = уникальные просмотры из сервера статистики + ещё не отправленные хиты,
+// поэтому ответ сразу учитывает собственный просмотр вызывающего без ожидания
+@Service
+@RequiredArgsConstructor
+public class EventViewServiceImpl implements EventViewService {
+
+    private static final String APP = "ewm-main-service";
+    private static final String EVENTS_URI = "/events/";
+
+    private final StatClientEwm statClientEwm;
+    private final StatHitPublisher statHitPublisher;
+    private final PendingHits pendingHits;
+
+    @Override
+    public void registerView(HttpServletRequest request) {
+        statHitPublisher.publish(new HitDtoRequest(
+                APP,
+                request.getRequestURI(),
+                request.getRemoteAddr(),
+                LocalDateTime.now()
+        ));
+    }
+
+    @Override
+    public long getViews(Long eventId) {
+        return statClientEwm.getViews(eventId, true) + pendingHits.pendingViews(EVENTS_URI + eventId, true);
+    }
+
+    @Override
+    public Map<Long, Long> getViews(Collection<Long> eventIds) {
+        Map<Long, Long> views = new HashMap<>(statClientEwm.getViews(eventIds, true));
+        for (Long eventId : eventIds) {
+            long pending = pendingHits.pendingViews(EVENTS_URI + eventId, true);
+            if (pending > 0) {
+                views.merge(eventId, pending, Long::sum);
+            }
+        }
+        return views;
+    }
+}
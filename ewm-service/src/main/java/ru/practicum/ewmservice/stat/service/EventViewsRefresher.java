@@ -0,0 +1,123 @@
+package ru.practicum.ewmservice.stat.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewmservice.compilation.service.PinnedCompilationsView;
+import ru.practicum.ewmservice.events.model.State;
+import ru.practicum.ewmservice.events.repository.EventRepository;
+import ru.practicum.ewmservice.events.repository.EventViewsRepository;
+import ru.practicum.ewmservice.stat.client.StatClientEwm;
+import ru.practicum.ewmservice.stat.client.ViewedEvents;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Переносит просмотры опубликованных событий из сервера статистики в events.views,
+// чтобы сортировка по просмотрам выполнялась в БД до пагинации.
+// Раз в интервал обновляются только события, хиты которых этот экземпляр отправил с прошлого прохода,
+// полный обход всех опубликованных событий (keyset по id) - при старте и раз в full-refresh-interval-ms
+@Component
+@Slf4j
+public class EventViewsRefresher {
+
+    private final EventRepository eventRepository;
+    private final EventViewsRepository eventViewsRepository;
+    private final StatClientEwm statClientEwm;
+    private final PinnedCompilationsView pinnedCompilationsView;
+    private final ViewedEvents viewedEvents;
+    private final int batchSize;
+    private final long fullRefreshIntervalNanos;
+
+    private long lastFullRefresh;
+    private boolean fullRefreshDone;
+
+    public EventViewsRefresher(EventRepository eventRepository,
+                               EventViewsRepository eventViewsRepository,
+                               StatClientEwm statClientEwm,
+                               PinnedCompilationsView pinnedCompilationsView,
+                               ViewedEvents viewedEvents,
+                               @Value("${stat.views.refresh-batch-size:500}") int batchSize,
+                               @Value("${stat.views.full-refresh-interval-ms:3600000}") long fullRefreshIntervalMs) {
+        this.eventRepository = eventRepository;
+        this.eventViewsRepository = eventViewsRepository;
+        this.statClientEwm = statClientEwm;
+        this.pinnedCompilationsView = pinnedCompilationsView;
+        this.viewedEvents = viewedEvents;
+        this.batchSize = batchSize;
+        this.fullRefreshIntervalNanos = TimeUnit.MILLISECONDS.toNanos(fullRefreshIntervalMs);
+    }
+
+    @Scheduled(fixedDelayString = "${stat.views.refresh-interval-ms:60000}")
+    public void refresh() {
+        // забираем до обхода: хиты, пришедшие во время полного обхода, попадут в следующий проход
+        List<Long> viewed = viewedEvents.drain();
+        long now = System.nanoTime();
+        int updated;
+        if (!fullRefreshDone || now - lastFullRefresh >= fullRefreshIntervalNanos) {
+            updated = refreshAll();
+            if (updated >= 0) {
+                fullRefreshDone = true;
+                lastFullRefresh = now;
+            } else {
+                viewedEvents.markAll(viewed);
+            }
+        } else {
+            updated = refreshViewed(viewed);
+        }
+        log.debug("Обновлены просмотры {} событий", updated);
+    }
+
+    private int refreshAll() {
+        int updated = 0;
+        long lastId = 0;
+        try {
+            List<Long> eventIds = eventRepository.findIdsByStateAfter(State.PUBLISHED, lastId,
+                    PageRequest.of(0, batchSize));
+            while (!eventIds.isEmpty()) {
+                updated += refreshBatch(eventIds);
+                lastId = eventIds.get(eventIds.size() - 1);
+                eventIds = eventRepository.findIdsByStateAfter(State.PUBLISHED, lastId,
+                        PageRequest.of(0, batchSize));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Не удалось обновить просмотры событий после id {}: {}", lastId, e.getMessage());
+            return -1;
+        }
+        return updated;
+    }
+
+    private int refreshViewed(List<Long> viewed) {
+        int updated = 0;
+        for (int from = 0; from < viewed.size(); from += batchSize) {
+            List<Long> batch = viewed.subList(from, Math.min(from + batchSize, viewed.size()));
+            try {
+                List<Long> published = eventRepository.findIdsByStateAndIdIn(State.PUBLISHED, batch);
+                if (!published.isEmpty()) {
+                    updated += refreshBatch(published);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Не удалось обновить просмотры событий: {}", e.getMessage());
+                viewedEvents.markAll(viewed.subList(from, viewed.size()));
+                break;
+            }
+        }
+        return updated;
+    }
+
+    private int refreshBatch(List<Long> eventIds) {
+        Map<Long, Long> views = statClientEwm.getViewsUncached(eventIds, true);
+        // событий из неудавшихся пачек в ответе нет: старое число не затирается, повтор - в следующий проход
+        if (views.size() < eventIds.size()) {
+            viewedEvents.markAll(eventIds.stream().filter(id -> !views.containsKey(id)).toList());
+        }
+        List<Long> changed = eventViewsRepository.updateViews(views);
+        if (!changed.isEmpty()) {
+            pinnedCompilationsView.markEventsChanged(changed);
+        }
+        return changed.size();
+    }
+}
@@ -23,8 +23,12 @@ public class AdminUserController {
     public ResponseEntity<Collection<UserDto>> getAllUsers(
             @RequestParam(required = false) List<Long> ids,
             @RequestParam(name = "from", defaultValue = "0") Integer from,
-            @RequestParam(name = "size", defaultValue = "10") Integer size) {
+            @RequestParam(name = "size", defaultValue = "10") Integer size,
+            @RequestParam(required = false) String after) {
         log.info("Запрос от администратора на получение пользователей: ids={}, from={}, size={}", ids, from, size);
+        if (after != null) {
+            return userService.getUsersAfter(ids, after, size).toResponse();
+        }
         Collection<UserDto> users = userService.getAllUsers(ids, from, size);
         log.info("Получено пользователей: {}", users.size());
         return ResponseEntity.ok(users);
@@ -1,6 +1,7 @@
 package ru.practicum.ewmservice.user.service;
 
 import org.springframework.stereotype.Service;
+import ru.practicum.ewmservice.pagination.CursorPage;
 import ru.practicum.ewmservice.user.dto.UserDto;
 
 import java.util.Collection;
@@ -11,6 +12,8 @@ public interface UserService {
 
     Collection<UserDto> getAllUsers(List<Long> ids, Integer from, Integer size);
 
+    CursorPage<UserDto> getUsersAfter(List<Long> ids, String after, Integer size);
+
     UserDto createUser(UserDto userDto);
 
     void deleteUser(Long userId);
@@ -5,6 +5,8 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import ru.practicum.ewmservice.exception.ConditionsNotMetException;
 import ru.practicum.ewmservice.exception.ConflictException;
+import ru.practicum.ewmservice.pagination.CursorPage;
+import ru.practicum.ewmservice.pagination.PageCursor;
 import ru.practicum.ewmservice.user.dto.UserDto;
 import ru.practicum.ewmservice.user.dto.UserMapper;
 import ru.practicum.ewmservice.user.model.User;
@@ -37,6 +39,17 @@ public class UserServiceImpl implements UserService {
         }
     }
 
+    @Override
+    public CursorPage<UserDto> getUsersAfter(List<Long> ids, String after, Integer size) {
+        CursorPage.validateSize(size);
+        long afterId = PageCursor.decode(after).id();
+        PageRequest limit = PageRequest.of(0, size);
+        List<User> users = (ids == null || ids.isEmpty())
+                ? userRepository.findByIdGreaterThanOrderByIdAsc(afterId, limit)
+                : userRepository.findByIdInAndIdGreaterThanOrderByIdAsc(ids, afterId, limit);
+        return CursorPage.of(users, size, userMapper::toDto, user -> PageCursor.ofId(user.getId()));
+    }
+
     @Override
     public UserDto createUser(UserDto userDto) {
         validate(userDto);
@@ -0,0 +1,18 @@
+-- Публичный поиск и админский поиск: фильтр по state и диапазону event_date
+CREATE INDEX IF NOT EXISTS events_state_event_date_idx ON events (state, event_date);
+
+-- keyset-пагинация публичного поиска по (event_date, id)
+CREATE INDEX IF NOT EXISTS events_event_date_id_idx ON events (event_date, id);
+
+CREATE INDEX IF NOT EXISTS events_initiator_id_idx ON events (initiator_id);
+
+CREATE INDEX IF NOT EXISTS events_category_id_idx ON events (category_id);
+
+-- Выражение должно совпадать с to_tsvector в EventRepository.searchByText
+CREATE INDEX IF NOT EXISTS events_search_idx ON events
+    USING GIN (to_tsvector('russian', annotation || ' ' || coalesce(description, '')));
+
+-- Заявки события по статусу; (requester_id, event_id) покрыт уникальным ограничением
+CREATE INDEX IF NOT EXISTS requests_event_id_status_idx ON requests (event_id, status);
+
+CREATE INDEX IF NOT EXISTS comments_event_id_idx ON comments (event_id);
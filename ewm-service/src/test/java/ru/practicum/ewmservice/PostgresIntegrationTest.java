@@ -0,0 +1,109 @@
+package ru.practicum.ewmservice;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewmservice.category.model.Category;
+import ru.practicum.ewmservice.category.repository.CategoryRepository;
+import ru.practicum.ewmservice.events.model.Event;
+import ru.practicum.ewmservice.events.model.Location;
+import ru.practicum.ewmservice.events.model.State;
+import ru.practicum.ewmservice.events.repository.EventRepository;
+import ru.practicum.ewmservice.user.model.User;
+import ru.practicum.ewmservice.user.repository.UserRepository;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+// Тесты против настоящего PostgreSQL: миграции, частичные индексы и полнотекстовый поиск в H2 не воспроизводятся.
+// БД задаётся переменными EWM_TEST_DB_URL, EWM_TEST_DB_USERNAME, EWM_TEST_DB_PASSWORD, например
+// EWM_TEST_DB_URL=jdbc:postgresql://localhost:5433/ewmdb для ewm_postgres из docker-compose.yml
+@SpringBootTest(properties = "stat.server.url=http://localhost:1")
+@EnabledIfEnvironmentVariable(named = "EWM_TEST_DB_URL", matches = ".+")
+public abstract class PostgresIntegrationTest {
+
+    @Autowired
+    protected UserRepository userRepository;
+
+    @Autowired
+    protected CategoryRepository categoryRepository;
+
+    @Autowired
+    protected EventRepository eventRepository;
+
+    @Autowired
+    protected TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("EWM_TEST_DB_URL"));
+        registry.add("spring.datasource.username", () -> env("EWM_TEST_DB_USERNAME", "user"));
+        registry.add("spring.datasource.password", () -> env("EWM_TEST_DB_PASSWORD", "password"));
+    }
+
+    // Данные каждого теста уникальны, поэтому тесты не мешают друг другу без очистки БД
+    protected User createUser() {
+        String suffix = UUID.randomUUID().toString();
+        return userRepository.save(User.builder()
+                .name("user-" + suffix)
+                .email(suffix + "@test.ru")
+                .build());
+    }
+
+    protected Category createCategory() {
+        return categoryRepository.save(Category.builder()
+                .name("category-" + UUID.randomUUID())
+                .build());
+    }
+
+    protected Event createPublishedEvent(User initiator, Category category, int participantLimit,
+                                         boolean requestModeration) {
+        Instant now = Instant.now();
+        return eventRepository.save(Event.builder()
+                .annotation("Аннотация тестового события не короче двадцати символов")
+                .description("Описание тестового события не короче двадцати символов")
+                .title("Тестовое событие")
+                .category(category)
+                .initiator(initiator)
+                .location(Location.builder().lat(55.75).lon(37.62).build())
+                .createdOn(now)
+                .publishedOn(now)
+                .eventDate(now.plus(10, ChronoUnit.DAYS))
+                .paid(false)
+                .participantLimit(participantLimit)
+                .requestModeration(requestModeration)
+                .state(State.PUBLISHED)
+                .build());
+    }
+
+    // Условный UPDATE счётчика в приложении всегда вызывается внутри транзакции сервиса
+    protected void incrementConfirmedRequests(Long eventId) {
+        transactionTemplate.executeWithoutResult(status -> eventRepository.incrementConfirmedRequests(eventId));
+    }
+
+    // Счётчики Hibernate ведутся только при hibernate.generate_statistics=true в свойствах теста
+    protected Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    // Category, User и Location лежат в кэше второго уровня: без сброса ленивые связи
+    // подгружались бы из него без запросов к БД, и тест на число запросов не заметил бы N+1
+    protected void evictSecondLevelCache() {
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? value : defaultValue;
+    }
+}
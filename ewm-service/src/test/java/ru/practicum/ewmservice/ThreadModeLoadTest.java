@@ -0,0 +1,208 @@
+package ru.practicum.ewmservice;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Нагрузочное сравнение режимов потоков: приложение поднимается дважды, на платформенных и на виртуальных потоках,
+// и CLIENTS клиентов одновременно запрашивают публичный список событий. Сервер статистики заменён заглушкой
+// с задержкой ответа, кэш просмотров и bulkhead фактически отключены: каждый запрос блокирует поток на вызове статистики.
+// Оба запуска идут в одной JVM, поэтому память - пик занятой кучи во время замера, а не абсолютный размер процесса.
+// Прогон занимает около минуты, поэтому кроме EWM_TEST_DB_URL нужен EWM_BENCHMARK=true
+@EnabledIfEnvironmentVariable(named = "EWM_TEST_DB_URL", matches = ".+")
+@EnabledIfEnvironmentVariable(named = "EWM_BENCHMARK", matches = "true")
+class ThreadModeLoadTest {
+
+    private static final int CLIENTS = 2_000;
+    private static final long STAT_DELAY_MS = 50;
+    private static final Duration WARM_UP = Duration.ofSeconds(5);
+    private static final Duration MEASURED = Duration.ofSeconds(15);
+
+    private HttpServer statServer;
+
+    @BeforeEach
+    void startStatServer() throws IOException {
+        statServer = HttpServer.create(new InetSocketAddress("localhost", 0), CLIENTS);
+        statServer.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        statServer.createContext("/stats/views", exchange -> respond(exchange, "[]"));
+        statServer.createContext("/hits", exchange -> respond(exchange, ""));
+        statServer.start();
+    }
+
+    @AfterEach
+    void stopStatServer() {
+        statServer.stop(0);
+    }
+
+    @Test
+    void virtualThreadsServeTwoThousandClientsWithoutThreadPerRequest() throws Exception {
+        LoadResult platform = run(false);
+        LoadResult virtual = run(true);
+        String comparison = String.format("платформенные потоки: %s, виртуальные: %s", platform, virtual);
+
+        assertThat(platform.failed()).as(comparison).isZero();
+        assertThat(virtual.failed()).as(comparison).isZero();
+        assertThat(virtual.peakPlatformThreads()).as(comparison).isLessThan(platform.peakPlatformThreads());
+        // пропускную способность ограничивает и пул соединений с БД, поэтому требуется «не хуже», а не кратный рост
+        assertThat(virtual.requestsPerSecond()).as(comparison)
+                .isGreaterThanOrEqualTo(platform.requestsPerSecond() * 9 / 10);
+    }
+
+    private LoadResult run(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(EwmServiceApplication.class)
+                .properties(properties(virtualThreads))
+                .run()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI uri = URI.create("http://localhost:" + port + "/events?from=0&size=10&sort=EVENT_DATE");
+            load(uri, WARM_UP, null);
+            return load(uri, MEASURED, new Sampler());
+        }
+    }
+
+    private LoadResult load(URI uri, Duration duration, Sampler sampler) throws Exception {
+        AtomicLong completed = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        AtomicBoolean stop = new AtomicBoolean();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET().build();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient httpClient = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .executor(clients)
+                     .build()) {
+            if (sampler != null) {
+                sampler.start();
+            }
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                futures.add(clients.submit(() -> {
+                    while (!stop.get()) {
+                        try {
+                            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                            (response.statusCode() == 200 ? completed : failed).incrementAndGet();
+                        } catch (IOException e) {
+                            failed.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            Thread.sleep(duration.toMillis());
+            stop.set(true);
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        if (sampler == null) {
+            return null;
+        }
+        sampler.stop();
+        return new LoadResult(completed.get() / duration.toSeconds(), failed.get(),
+                sampler.peakPlatformThreads(), sampler.peakHeapBytes() / (1024 * 1024));
+    }
+
+    private Map<String, Object> properties(boolean virtualThreads) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("server.port", 0);
+        properties.put("spring.threads.virtual.enabled", virtualThreads);
+        properties.put("spring.datasource.url", System.getenv("EWM_TEST_DB_URL"));
+        properties.put("spring.datasource.username", env("EWM_TEST_DB_USERNAME", "user"));
+        properties.put("spring.datasource.password", env("EWM_TEST_DB_PASSWORD", "password"));
+        properties.put("spring.datasource.hikari.maximum-pool-size", 50);
+        properties.put("spring.jpa.show-sql", false);
+        properties.put("stat.server.url", "http://localhost:" + statServer.getAddress().getPort());
+        properties.put("stat.views.cache.ttl-ms", 1);
+        properties.put("stat.client.bulkhead.max-concurrent-calls", CLIENTS);
+        properties.put("stat.client.max-connections", CLIENTS);
+        properties.put("stat.client.pending-acquire-timeout-ms", 10_000);
+        return properties;
+    }
+
+    private void respond(HttpExchange exchange, String body) throws IOException {
+        try {
+            Thread.sleep(STAT_DELAY_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length == 0 ? -1 : bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? value : defaultValue;
+    }
+
+    // Пики числа платформенных потоков и занятой кучи за время замера; виртуальные потоки в счётчик не входят
+    private static class Sampler {
+
+        private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final AtomicLong peakHeapBytes = new AtomicLong();
+        private final AtomicBoolean running = new AtomicBoolean();
+        private Thread thread;
+
+        void start() {
+            threads.resetPeakThreadCount();
+            running.set(true);
+            thread = Thread.ofPlatform().daemon().start(() -> {
+                while (running.get()) {
+                    peakHeapBytes.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+        }
+
+        void stop() throws InterruptedException {
+            running.set(false);
+            thread.join();
+        }
+
+        int peakPlatformThreads() {
+            return threads.getPeakThreadCount();
+        }
+
+        long peakHeapBytes() {
+            return peakHeapBytes.get();
+        }
+    }
+
+    private record LoadResult(long requestsPerSecond, long failed, int peakPlatformThreads, long peakHeapMb) {
+    }
+}
@@ -0,0 +1,52 @@
+package ru.practicum.ewmservice.category.repository;
+
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+import ru.practicum.ewmservice.PostgresIntegrationTest;
+import ru.practicum.ewmservice.category.model.Category;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class CategoryCacheTest extends PostgresIntegrationTest {
+
+    @Test
+    void findByIdIsServedFromSecondLevelCache() {
+        Category category = createCategory();
+        categoryRepository.findById(category.getId());
+
+        Statistics statistics = statistics();
+        statistics.clear();
+        Category cached = categoryRepository.findById(category.getId()).orElseThrow();
+
+        assertThat(cached.getName()).isEqualTo(category.getName());
+        assertThat(statistics.getSecondLevelCacheHitCount()).isGreaterThan(0L);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void renamedCategoryIsNotServedStale() {
+        Category category = createCategory();
+        categoryRepository.findById(category.getId());
+
+        category.setName(category.getName() + "-renamed");
+        categoryRepository.save(category);
+
+        assertThat(categoryRepository.findById(category.getId()).orElseThrow().getName())
+                .isEqualTo(category.getName());
+    }
+
+    // Кэш запросов сбрасывается при изменении таблицы categories
+    @Test
+    void cachedKeysetPageSeesNewCategory() {
+        Category first = createCategory();
+        categoryRepository.findByIdGreaterThanOrderByIdAsc(first.getId(), PageRequest.of(0, 10));
+
+        Category second = createCategory();
+
+        assertThat(categoryRepository.findByIdGreaterThanOrderByIdAsc(first.getId(), PageRequest.of(0, 10))
+                .stream().map(Category::getId).toList().contains(second.getId())).isTrue();
+    }
+}
@@ -0,0 +1,91 @@
+package ru.practicum.ewmservice.compilation.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import ru.practicum.ewmservice.compilation.repository.CompilationRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PinnedCompilationsViewTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private Consumer<PinnedCompilationsView> onLoad = view -> { };
+    private final PinnedCompilationsView view = new PinnedCompilationsView(
+            repository(), null, null, new NoOpTransactionManager());
+
+    @Test
+    void snapshotIsReusedWhileNothingChanges() {
+        view.getPinned();
+        view.getPinned();
+        view.getPinned();
+
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    // В снимке ещё нет id событий, поэтому без учёта идущей пересборки изменение потерялось бы
+    @Test
+    void eventChangeDuringFirstBuildForcesRebuild() {
+        onLoad = current -> current.markEventsChanged(List.of(1L));
+
+        view.getPinned();
+        onLoad = current -> { };
+        view.getPinned();
+        view.getPinned();
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void changeOfEventOutsideSnapshotIsIgnoredWhenIdle() {
+        view.getPinned();
+        view.markEventsChanged(List.of(1L));
+        view.getPinned();
+
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void compilationChangeForcesRebuild() {
+        view.getPinned();
+        view.markChanged();
+        view.getPinned();
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    private CompilationRepository repository() {
+        return (CompilationRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{CompilationRepository.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("findAllPinnedWithEvents")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    loads.incrementAndGet();
+                    onLoad.accept(view);
+                    return List.of();
+                });
+    }
+
+    private static class NoOpTransactionManager implements PlatformTransactionManager {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
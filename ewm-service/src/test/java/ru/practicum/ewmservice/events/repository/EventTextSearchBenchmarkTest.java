@@ -0,0 +1,92 @@
+package ru.practicum.ewmservice.events.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.ewmservice.PostgresIntegrationTest;
+import ru.practicum.ewmservice.category.model.Category;
+import ru.practicum.ewmservice.events.model.Event;
+import ru.practicum.ewmservice.events.model.State;
+import ru.practicum.ewmservice.user.model.User;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Полнотекстовый поиск по GIN-индексу против прежнего LIKE '%text%' на миллионе событий.
+// Редкое слово есть в каждом тысячном событии, описания - по несколько сотен символов.
+// Заполнение и индексация занимают минуты, поэтому кроме EWM_TEST_DB_URL нужен EWM_BENCHMARK=true;
+// события теста удаляются после замера
+class EventTextSearchBenchmarkTest extends PostgresIntegrationTest {
+
+    private static final int EVENTS = 1_000_000;
+    private static final int RUNS = 10;
+    private static final String RARE_WORD = "фестиваль";
+
+    private static final String INSERT_EVENTS = "INSERT INTO events (annotation, created_on, description, category_id, " +
+            "event_date, initiator_id, paid, participant_limit, published_on, request_moderation, state, title, views) " +
+            "SELECT 'Аннотация события номер ' || g || CASE WHEN g % 1000 = 0 THEN ' джазовый " + RARE_WORD + "' " +
+            "ELSE ' концерт в парке' END, now(), " +
+            "repeat('Подробное описание встречи с музыкой, лекциями и прогулками. ', 8) || g, ?, " +
+            "now() + interval '10 days', ?, false, 0, now(), false, 'PUBLISHED', 'Событие ' || g, g % 500 " +
+            "FROM generate_series(1, ?) g";
+
+    // Запрос фильтра text до перехода на полнотекстовый поиск
+    private static final String LIKE_SEARCH = "SELECT e.id FROM events e " +
+            "WHERE (LOWER(e.annotation) LIKE ? OR LOWER(e.description) LIKE ?) " +
+            "AND e.category_id = ? AND e.state = 'PUBLISHED' AND e.event_date BETWEEN ? AND ? " +
+            "ORDER BY e.event_date, e.id LIMIT 10";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "EWM_BENCHMARK", matches = "true")
+    void fullTextSearchOutperformsLikeOnMillionEvents() {
+        User initiator = createUser();
+        Category category = createCategory();
+        Instant start = Instant.now();
+        Instant end = start.plus(30, ChronoUnit.DAYS);
+        try {
+            jdbcTemplate.update(INSERT_EVENTS, category.getId(), initiator.getId(), EVENTS);
+            jdbcTemplate.execute("ANALYZE events");
+
+            List<Event> found = eventRepository.searchByTextAndCategories(RARE_WORD, List.of(category.getId()),
+                    null, false, start, end, State.PUBLISHED.name(), "", PageRequest.of(0, 10));
+            assertThat(found).hasSize(10);
+            assertThat(found.stream().allMatch(event -> event.getAnnotation().contains(RARE_WORD))).isTrue();
+
+            Duration fullText = best(() -> eventRepository.searchByTextAndCategories(RARE_WORD,
+                    List.of(category.getId()), null, false, start, end, State.PUBLISHED.name(), "",
+                    PageRequest.of(0, 10)));
+            Duration like = best(() -> jdbcTemplate.queryForList(LIKE_SEARCH, Long.class, "%" + RARE_WORD + "%",
+                    "%" + RARE_WORD + "%", category.getId(), Timestamp.from(start), Timestamp.from(end)));
+
+            assertThat(fullText).as("полнотекстовый поиск %s, LIKE %s", fullText, like).isLessThan(like);
+            assertThat(fullText.toMillis()).as("полнотекстовый поиск %s", fullText).isLessThan(200L);
+        } finally {
+            jdbcTemplate.update("DELETE FROM events WHERE category_id = ?", category.getId());
+        }
+    }
+
+    // Первый прогон - прогрев кэша страниц, в зачёт идёт лучший из остальных
+    private static Duration best(Supplier<List<?>> search) {
+        Duration best = null;
+        for (int run = 0; run <= RUNS; run++) {
+            long started = System.nanoTime();
+            search.get();
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+            if (run > 0 && (best == null || elapsed.compareTo(best) < 0)) {
+                best = elapsed;
+            }
+        }
+        return best;
+    }
+}
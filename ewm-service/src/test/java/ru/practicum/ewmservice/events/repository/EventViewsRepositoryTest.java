@@ -0,0 +1,34 @@
+package ru.practicum.ewmservice.events.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import ru.practicum.ewmservice.PostgresIntegrationTest;
+import ru.practicum.ewmservice.category.model.Category;
+import ru.practicum.ewmservice.events.model.Event;
+import ru.practicum.ewmservice.user.model.User;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventViewsRepositoryTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private EventViewsRepository eventViewsRepository;
+
+    @Test
+    void updatesPageInOneStatementAndReturnsOnlyChangedEvents() {
+        User initiator = createUser();
+        Category category = createCategory();
+        Event first = createPublishedEvent(initiator, category, 0, false);
+        Event second = createPublishedEvent(initiator, category, 0, false);
+        eventViewsRepository.updateViews(Map.of(first.getId(), 7L));
+
+        List<Long> changed = eventViewsRepository.updateViews(Map.of(first.getId(), 7L, second.getId(), 3L));
+
+        assertThat(changed).containsExactly(second.getId());
+        assertThat(eventRepository.findById(first.getId()).orElseThrow().getViews()).isEqualTo(7);
+        assertThat(eventRepository.findById(second.getId()).orElseThrow().getViews()).isEqualTo(3);
+    }
+}
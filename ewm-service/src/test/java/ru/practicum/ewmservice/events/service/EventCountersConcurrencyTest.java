@@ -0,0 +1,99 @@
+package ru.practicum.ewmservice.events.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import ru.practicum.ewmservice.PostgresIntegrationTest;
+import ru.practicum.ewmservice.category.model.Category;
+import ru.practicum.ewmservice.events.dto.UpdateEventAdminRequest;
+import ru.practicum.ewmservice.events.model.Event;
+import ru.practicum.ewmservice.events.repository.EventViewsRepository;
+import ru.practicum.ewmservice.request.model.RequestStatus;
+import ru.practicum.ewmservice.request.repository.RequestRepository;
+import ru.practicum.ewmservice.request.service.RequestService;
+import ru.practicum.ewmservice.user.model.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventCountersConcurrencyTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private RequestService requestService;
+
+    @Autowired
+    private RequestRepository requestRepository;
+
+    @Autowired
+    private EventViewsRepository eventViewsRepository;
+
+    @Test
+    void saveOfStaleEventKeepsCountersUpdatedMeanwhile() {
+        Event event = createPublishedEvent(createUser(), createCategory(), 0, false);
+        Event stale = eventRepository.findById(event.getId()).orElseThrow();
+
+        eventViewsRepository.updateViews(Map.of(event.getId(), 100L));
+        incrementConfirmedRequests(event.getId());
+        stale.setTitle("Новое название");
+        eventRepository.save(stale);
+
+        Event saved = eventRepository.findById(event.getId()).orElseThrow();
+        assertThat(saved.getTitle()).isEqualTo("Новое название");
+        assertThat(saved.getViews()).isEqualTo(100);
+        assertThat(saved.getConfirmedRequests()).isEqualTo(1);
+    }
+
+    @Test
+    void adminEditsDoNotOverwriteConcurrentConfirmations() throws Exception {
+        int participants = 20;
+        Category category = createCategory();
+        Event event = createPublishedEvent(createUser(), category, 0, false);
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < participants; i++) {
+            users.add(createUser());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < participants; i++) {
+                User user = users.get(i);
+                String title = "Название после правки " + i;
+                futures.add(executor.submit(startAfter(start, () ->
+                        requestService.createUserRequest(user.getId(), event.getId()))));
+                futures.add(executor.submit(startAfter(start, () -> eventService.editEvent(event.getId(),
+                        UpdateEventAdminRequest.builder().title(title).build()))));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Event saved = eventRepository.findById(event.getId()).orElseThrow();
+        assertThat(saved.getConfirmedRequests()).isEqualTo(participants);
+        assertThat(requestRepository.countByEventIdAndStatus(event.getId(), RequestStatus.CONFIRMED))
+                .isEqualTo((long) participants);
+    }
+
+    private static <T> Callable<T> startAfter(CountDownLatch start, Callable<T> task) {
+        return () -> {
+            start.await();
+            return task.call();
+        };
+    }
+}
@@ -0,0 +1,115 @@
+package ru.practicum.ewmservice.events.service;
+
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.TestPropertySource;
+import ru.practicum.ewmservice.PostgresIntegrationTest;
+import ru.practicum.ewmservice.category.model.Category;
+import ru.practicum.ewmservice.events.dto.EventDtoFull;
+import ru.practicum.ewmservice.events.model.Event;
+import ru.practicum.ewmservice.user.model.User;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// У каждого события свой инициатор и своя категория, поэтому ленивая загрузка дала бы по запросу на строку.
+// Пакетная подгрузка выключена, а кэш второго уровня сбрасывается перед замером: иначе они скрыли бы потерю entity graph
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.default_batch_fetch_size=1"
+})
+class EventListFetchTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private EventService eventService;
+
+    @Test
+    void adminSearchLoadsAssociationsWithPageQuery() {
+        List<Event> small = createEvents(2);
+        List<Event> large = createEvents(20);
+
+        StatementCount smallPage = count(() -> eventService.searchEvents(
+                initiatorIds(small), null, null, null, null, 0, 50));
+        StatementCount largePage = count(() -> eventService.searchEvents(
+                initiatorIds(large), null, null, null, null, 0, 50));
+
+        assertThat(largePage.result()).hasSize(20);
+        assertThat(largePage.statements()).isEqualTo(smallPage.statements());
+        assertThat(largePage.entityFetches()).isZero();
+        assertThat(largePage.cacheHits()).isZero();
+    }
+
+    @Test
+    void publicListingLoadsAssociationsWithPageQuery() {
+        List<Event> small = createEvents(2);
+        List<Event> large = createEvents(20);
+
+        StatementCount smallPage = count(() -> eventService.getAllEventsPublicFilter(
+                null, categoryIds(small), null, null, null, false, "EVENT_DATE", 0, 50, request()));
+        StatementCount largePage = count(() -> eventService.getAllEventsPublicFilter(
+                null, categoryIds(large), null, null, null, false, "EVENT_DATE", 0, 50, request()));
+
+        assertThat(largePage.result()).hasSize(20);
+        assertThat(largePage.statements()).isEqualTo(smallPage.statements());
+        assertThat(largePage.entityFetches()).isZero();
+        assertThat(largePage.cacheHits()).isZero();
+    }
+
+    @Test
+    void listedEventCarriesInitiatorCategoryAndLocation() {
+        List<Event> events = createEvents(1);
+        Event event = events.get(0);
+
+        Collection<EventDtoFull> page = eventService.searchEvents(
+                initiatorIds(events), null, null, null, null, 0, 10);
+
+        assertThat(page).hasSize(1);
+        EventDtoFull dto = page.iterator().next();
+        assertThat(dto.getInitiator().getId()).isEqualTo(event.getInitiator().getId());
+        assertThat(dto.getCategory().getId()).isEqualTo(event.getCategory().getId());
+        assertThat(dto.getLocation().getLat()).isEqualTo(event.getLocation().getLat());
+    }
+
+    private List<Event> createEvents(int count) {
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            User initiator = createUser();
+            Category category = createCategory();
+            events.add(createPublishedEvent(initiator, category, 0, false));
+        }
+        return events;
+    }
+
+    private static List<Long> initiatorIds(List<Event> events) {
+        return events.stream().map(event -> event.getInitiator().getId()).toList();
+    }
+
+    private static List<Long> categoryIds(List<Event> events) {
+        return events.stream().map(event -> event.getCategory().getId()).toList();
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/events");
+        request.setRemoteAddr("127.0.0.1");
+        return request;
+    }
+
+    private StatementCount count(Supplier<Collection<EventDtoFull>> call) {
+        evictSecondLevelCache();
+        Statistics statistics = statistics();
+        statistics.clear();
+        Collection<EventDtoFull> result = call.get();
+        return new StatementCount(result, statistics.getPrepareStatementCount(), statistics.getEntityFetchCount(),
+                statistics.getSecondLevelCacheHitCount());
+    }
+
+    private record StatementCount(Collection<EventDtoFull> result, long statements, long entityFetches,
+                                  long cacheHits) {
+    }
+}
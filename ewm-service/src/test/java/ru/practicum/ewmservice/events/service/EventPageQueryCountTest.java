@@ -0,0 +1,70 @@
+package ru.practicum.ewmservice.events.service;
+
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import ru.practicum.ewmservice.PostgresIntegrationTest;
+import ru.practicum.ewmservice.events.dto.EventShortDto;
+import ru.practicum.ewmservice.events.model.Event;
+import ru.practicum.ewmservice.user.model.User;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Число подтверждённых заявок на странице событий не должно стоить по запросу на событие.
+// Пакетная подгрузка выключена, а кэш второго уровня сбрасывается перед замером, чтобы N+1 был виден в числе запросов
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.default_batch_fetch_size=1"
+})
+class EventPageQueryCountTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private EventService eventService;
+
+    @Test
+    void userEventsPageUsesSameNumberOfStatementsForAnyPageSize() {
+        User small = createInitiatorWithEvents(2);
+        User large = createInitiatorWithEvents(20);
+
+        long smallPageStatements = countStatements(() -> eventService.getUserEvents(small.getId(), 0, 50));
+        long largePageStatements = countStatements(() -> eventService.getUserEvents(large.getId(), 0, 50));
+
+        assertThat(largePageStatements).isEqualTo(smallPageStatements);
+        assertThat(statistics().getEntityFetchCount()).isZero();
+        assertThat(statistics().getSecondLevelCacheHitCount()).isZero();
+    }
+
+    @Test
+    void userEventsPageReportsConfirmedRequests() {
+        User initiator = createUser();
+        Event event = createPublishedEvent(initiator, createCategory(), 0, false);
+        incrementConfirmedRequests(event.getId());
+        incrementConfirmedRequests(event.getId());
+
+        List<EventShortDto> page = eventService.getUserEvents(initiator.getId(), 0, 10);
+
+        assertThat(page).hasSize(1);
+        assertThat(page.get(0).getConfirmedRequests()).isEqualTo(2);
+    }
+
+    // Своя категория у каждого события: ленивая загрузка категорий дала бы по запросу на событие
+    private User createInitiatorWithEvents(int count) {
+        User initiator = createUser();
+        for (int i = 0; i < count; i++) {
+            Event event = createPublishedEvent(initiator, createCategory(), 0, false);
+            incrementConfirmedRequests(event.getId());
+        }
+        return initiator;
+    }
+
+    private long countStatements(Runnable call) {
+        evictSecondLevelCache();
+        Statistics statistics = statistics();
+        statistics.clear();
+        call.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,98 @@
+package ru.practicum.ewmservice.events.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletRequest;
+import ru.practicum.ewmservice.PostgresIntegrationTest;
+import ru.practicum.ewmservice.category.model.Category;
+import ru.practicum.ewmservice.events.dto.EventDtoFull;
+import ru.practicum.ewmservice.events.model.Event;
+import ru.practicum.ewmservice.events.repository.EventViewsRepository;
+import ru.practicum.ewmservice.user.model.User;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Сортировка по events.views и фильтры paid/onlyAvailable выполняются в БД до пагинации.
+// У каждого теста своя категория, поэтому события других тестов в выборку не попадают
+class EventPublicFilterTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private EventViewsRepository eventViewsRepository;
+
+    @Test
+    void viewsSortOrdersByStoredViewsBeforePaging() {
+        User initiator = createUser();
+        Category category = createCategory();
+        Event few = createPublishedEvent(initiator, category, 0, false);
+        Event most = createPublishedEvent(initiator, category, 0, false);
+        Event middle = createPublishedEvent(initiator, category, 0, false);
+        Event tie = createPublishedEvent(initiator, category, 0, false);
+        eventViewsRepository.updateViews(Map.of(few.getId(), 5L, most.getId(), 50L,
+                middle.getId(), 20L, tie.getId(), 20L));
+
+        List<Long> firstPage = ids(search(category, null, false, "VIEWS", 0, 2));
+        List<Long> secondPage = ids(search(category, null, false, "VIEWS", 2, 2));
+
+        // при равных просмотрах порядок задаёт id, поэтому страницы не пересекаются
+        assertThat(firstPage).containsExactly(most.getId(), middle.getId());
+        assertThat(secondPage).containsExactly(tie.getId(), few.getId());
+    }
+
+    @Test
+    void paidFilterIsAppliedBeforePaging() {
+        User initiator = createUser();
+        Category category = createCategory();
+        Event free = createPublishedEvent(initiator, category, 0, false);
+        Event paid = createPaidEvent(initiator, category);
+        Event otherFree = createPublishedEvent(initiator, category, 0, false);
+
+        assertThat(ids(search(category, true, false, "EVENT_DATE", 0, 1))).containsExactly(paid.getId());
+        assertThat(ids(search(category, false, false, "EVENT_DATE", 0, 10)))
+                .containsExactly(free.getId(), otherFree.getId());
+        assertThat(ids(search(category, null, false, "EVENT_DATE", 0, 10))).hasSize(3);
+    }
+
+    @Test
+    void onlyAvailableSkipsFullEventsButKeepsUnlimited() {
+        User initiator = createUser();
+        Category category = createCategory();
+        Event full = createPublishedEvent(initiator, category, 1, false);
+        Event open = createPublishedEvent(initiator, category, 2, false);
+        Event unlimited = createPublishedEvent(initiator, category, 0, false);
+        incrementConfirmedRequests(full.getId());
+        incrementConfirmedRequests(open.getId());
+
+        assertThat(ids(search(category, null, true, "EVENT_DATE", 0, 10)))
+                .containsExactly(open.getId(), unlimited.getId());
+        assertThat(ids(search(category, null, false, "EVENT_DATE", 0, 10))).hasSize(3);
+    }
+
+    private Event createPaidEvent(User initiator, Category category) {
+        Event event = createPublishedEvent(initiator, category, 0, false);
+        event.setPaid(true);
+        return eventRepository.save(event);
+    }
+
+    private Collection<EventDtoFull> search(Category category, Boolean paid, boolean onlyAvailable,
+                                            String sort, int from, int size) {
+        return eventService.getAllEventsPublicFilter(null, List.of(category.getId()), paid, null, null,
+                onlyAvailable, sort, from, size, request());
+    }
+
+    private static List<Long> ids(Collection<EventDtoFull> events) {
+        return events.stream().map(EventDtoFull::getId).toList();
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/events");
+        request.setRemoteAddr("127.0.0.1");
+        return request;
+    }
+}
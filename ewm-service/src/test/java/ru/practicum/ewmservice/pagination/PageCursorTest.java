@@ -0,0 +1,84 @@
+package ru.practicum.ewmservice.pagination;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.ewmservice.exception.ConditionsNotMetException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PageCursorTest {
+
+    @Test
+    void idCursorRoundTrip() {
+        PageCursor cursor = PageCursor.ofId(42L);
+
+        assertThat(PageCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void timestampCursorRoundTrip() {
+        PageCursor cursor = PageCursor.of(Instant.parse("2024-05-01T10:15:30.123456Z"), Long.MAX_VALUE);
+
+        assertThat(PageCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    // Токен передаётся в query-параметре, поэтому в нём не должно быть символов, требующих экранирования
+    @Test
+    void encodedTokenIsUrlSafe() {
+        String token = PageCursor.of(Instant.parse("2024-05-01T10:15:30Z"), 123_456_789L).encode();
+
+        assertThat(token.matches("[A-Za-z0-9_-]+")).isTrue();
+    }
+
+    @Test
+    void blankTokenMeansFirstPage() {
+        for (String token : new String[]{null, "", "   "}) {
+            PageCursor cursor = PageCursor.decode(token);
+            assertThat(cursor.timestamp()).isNull();
+            assertThat(cursor.id()).isEqualTo(0L);
+        }
+    }
+
+    @Test
+    void malformedTokensAreRejected() {
+        List<String> tokens = List.of(
+                "not base64!",
+                encode("abc"),
+                encode("2024-05-01T10:15:30Z"),
+                encode("yesterday,5"),
+                encode("2024-05-01T10:15:30Z,five"),
+                encode(","));
+        for (String token : tokens) {
+            assertThatThrownBy(() -> PageCursor.decode(token))
+                    .as("токен %s", token)
+                    .isInstanceOf(ConditionsNotMetException.class);
+        }
+    }
+
+    @Test
+    void pageSizeMustBePositive() {
+        assertThatThrownBy(() -> CursorPage.validateSize(0)).isInstanceOf(ConditionsNotMetException.class);
+        assertThatThrownBy(() -> CursorPage.validateSize(-1)).isInstanceOf(ConditionsNotMetException.class);
+        assertThatThrownBy(() -> CursorPage.validateSize(null)).isInstanceOf(ConditionsNotMetException.class);
+        CursorPage.validateSize(1);
+    }
+
+    @Test
+    void nextCursorPointsAtLastItemOfFullPage() {
+        CursorPage<Long> full = CursorPage.of(List.of(1L, 2L, 3L), 3, id -> id * 10, PageCursor::ofId);
+        CursorPage<Long> last = CursorPage.of(List.of(4L), 3, id -> id * 10, PageCursor::ofId);
+
+        assertThat(full.items()).containsExactly(10L, 20L, 30L);
+        assertThat(PageCursor.decode(full.nextCursor()).id()).isEqualTo(3L);
+        assertThat(last.nextCursor()).isNull();
+    }
+
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,120 @@
+package ru.practicum.ewmservice.request.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import ru.practicum.ewmservice.PostgresIntegrationTest;
+import ru.practicum.ewmservice.events.model.Event;
+import ru.practicum.ewmservice.exception.ConflictException;
+import ru.practicum.ewmservice.request.dto.ParticipationRequestDto;
+import ru.practicum.ewmservice.request.dto.ParticipationRequestDtoUpd;
+import ru.practicum.ewmservice.request.model.RequestStatus;
+import ru.practicum.ewmservice.request.repository.RequestRepository;
+import ru.practicum.ewmservice.user.model.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestLimitConcurrencyTest extends PostgresIntegrationTest {
+
+    private static final int LIMIT = 5;
+    private static final int PARTICIPANTS = 1_000;
+
+    @Autowired
+    private RequestService requestService;
+
+    @Autowired
+    private RequestRepository requestRepository;
+
+    @Test
+    void concurrentRequestsWithoutModerationNeverExceedLimit() throws Exception {
+        User initiator = createUser();
+        Event event = createPublishedEvent(initiator, createCategory(), LIMIT, false);
+        List<User> users = createUsers(PARTICIPANTS);
+
+        List<Callable<Object>> tasks = new ArrayList<>();
+        for (User user : users) {
+            tasks.add(() -> requestService.createUserRequest(user.getId(), event.getId()));
+        }
+        int succeeded = runConcurrently(tasks);
+
+        assertThat(succeeded).isEqualTo(LIMIT);
+        assertConfirmed(event, LIMIT);
+    }
+
+    @Test
+    void concurrentModerationConfirmsNeverExceedLimit() throws Exception {
+        User initiator = createUser();
+        Event event = createPublishedEvent(initiator, createCategory(), LIMIT, true);
+        List<Long> requestIds = new ArrayList<>();
+        for (User user : createUsers(PARTICIPANTS)) {
+            ParticipationRequestDto request = requestService.createUserRequest(user.getId(), event.getId());
+            requestIds.add(request.getId());
+        }
+
+        List<Callable<Object>> tasks = new ArrayList<>();
+        for (Long requestId : requestIds) {
+            tasks.add(() -> requestService.editUserRequestsStatusOfEvent(initiator.getId(), event.getId(),
+                    new ParticipationRequestDtoUpd(List.of(requestId), RequestStatus.CONFIRMED)));
+        }
+        runConcurrently(tasks);
+
+        assertConfirmed(event, LIMIT);
+    }
+
+    private void assertConfirmed(Event event, int expected) {
+        assertThat(eventRepository.findById(event.getId()).orElseThrow().getConfirmedRequests())
+                .isEqualTo(expected);
+        assertThat(requestRepository.countByEventIdAndStatus(event.getId(), RequestStatus.CONFIRMED))
+                .isEqualTo((long) expected);
+    }
+
+    private List<User> createUsers(int count) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(createUser());
+        }
+        return users;
+    }
+
+    // Каждая задача - в своём виртуальном потоке, все стартуют одновременно, как PARTICIPANTS параллельных HTTP-запросов:
+    // в БД их пропускает пул соединений, остальные ждут соединения. Отказ по лимиту (ConflictException) -
+    // ожидаемый исход, остальные ошибки, в том числе таймаут ожидания соединения, валят тест
+    private int runConcurrently(List<Callable<Object>> tasks) throws Exception {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Object>> futures = new ArrayList<>();
+        try {
+            for (Callable<Object> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+
+            int succeeded = 0;
+            for (Future<Object> future : futures) {
+                try {
+                    future.get(60, TimeUnit.SECONDS);
+                    succeeded++;
+                } catch (ExecutionException e) {
+                    if (!(e.getCause() instanceof ConflictException)) {
+                        throw e;
+                    }
+                }
+            }
+            return succeeded;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package ru.practicum.ewmservice.schema;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.ewmservice.PostgresIntegrationTest;
+
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Планы горячих запросов репозиториев: тест падает, если предикат перестал попадать в индекс из V2__hot_query_indexes.sql.
+// В тестовой БД мало строк, поэтому последовательное чтение запрещено: без подходящего индекса план останется Seq Scan
+class HotQueryIndexTest extends PostgresIntegrationTest {
+
+    private static final Pattern INDEX_NAME = Pattern.compile("\"Index Name\"\\s*:\\s*\"([^\"]+)\"");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void publicSearchUsesStateAndDateIndex() {
+        Set<String> indexes = indexesUsedBy("SELECT e.id FROM events e " +
+                "WHERE e.state = 'PUBLISHED' " +
+                "AND e.event_date BETWEEN TIMESTAMPTZ '2024-01-01' AND TIMESTAMPTZ '2024-02-01'");
+
+        assertThat(indexes.contains("events_state_event_date_idx")
+                || indexes.contains("events_event_date_id_idx")).as("индексы %s", indexes).isTrue();
+    }
+
+    @Test
+    void keysetPageUsesDateIdIndex() {
+        Set<String> indexes = indexesUsedBy("SELECT e.id FROM events e " +
+                "WHERE e.state = 'PUBLISHED' " +
+                "AND (e.event_date > TIMESTAMPTZ '2024-01-01' " +
+                "OR (e.event_date = TIMESTAMPTZ '2024-01-01' AND e.id > 100)) " +
+                "ORDER BY e.event_date, e.id LIMIT 10");
+
+        assertThat(indexes.contains("events_event_date_id_idx")
+                || indexes.contains("events_state_event_date_idx")).as("индексы %s", indexes).isTrue();
+    }
+
+    @Test
+    void textSearchUsesGinIndex() {
+        Set<String> indexes = indexesUsedBy("SELECT e.id FROM events e " +
+                "WHERE to_tsvector('russian', e.annotation || ' ' || coalesce(e.description, '')) " +
+                "@@ plainto_tsquery('russian', 'концерт')");
+
+        assertThat(indexes.contains("events_search_idx")).as("индексы %s", indexes).isTrue();
+    }
+
+    @Test
+    void userEventsUseInitiatorIndex() {
+        Set<String> indexes = indexesUsedBy("SELECT e.id FROM events e WHERE e.initiator_id = 1");
+
+        assertThat(indexes.contains("events_initiator_id_idx")).as("индексы %s", indexes).isTrue();
+    }
+
+    @Test
+    void categoryCheckUsesCategoryIndex() {
+        Set<String> indexes = indexesUsedBy("SELECT 1 FROM events e WHERE e.category_id = 1 LIMIT 1");
+
+        assertThat(indexes.contains("events_category_id_idx")).as("индексы %s", indexes).isTrue();
+    }
+
+    @Test
+    void requestCountByStatusUsesEventStatusIndex() {
+        Set<String> indexes = indexesUsedBy("SELECT COUNT(*) FROM requests r " +
+                "WHERE r.event_id = 1 AND r.status = 'CONFIRMED'");
+
+        assertThat(indexes.contains("requests_event_id_status_idx")).as("индексы %s", indexes).isTrue();
+    }
+
+    @Test
+    void requesterLookupUsesUniqueConstraintIndex() {
+        Set<String> indexes = indexesUsedBy("SELECT r.id FROM requests r " +
+                "WHERE r.requester_id = 1 AND r.event_id = 1");
+
+        assertThat(indexes.contains("requests_requester_id_event_id_key")).as("индексы %s", indexes).isTrue();
+    }
+
+    @Test
+    void eventCommentsUseEventIndex() {
+        Set<String> indexes = indexesUsedBy("SELECT c.id FROM comments c WHERE c.event_id = 1");
+
+        assertThat(indexes.contains("comments_event_id_idx")).as("индексы %s", indexes).isTrue();
+    }
+
+    // SET LOCAL действует до конца транзакции и не влияет на другие соединения пула
+    private Set<String> indexesUsedBy(String sql) {
+        String plan = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+            return jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + sql, String.class);
+        });
+        Set<String> indexes = new TreeSet<>();
+        Matcher matcher = INDEX_NAME.matcher(plan);
+        while (matcher.find()) {
+            indexes.add(matcher.group(1));
+        }
+        return indexes;
+    }
+}
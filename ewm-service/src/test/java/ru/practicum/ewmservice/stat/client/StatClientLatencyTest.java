@@ -0,0 +1,157 @@
+package ru.practicum.ewmservice.stat.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import ru.practicum.ewmservice.stat.dto.HitDtoRequest;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Сервер статистики заменён заглушкой на JDK HttpServer с настраиваемой задержкой ответа
+class StatClientLatencyTest {
+
+    private static final long CALL_TIMEOUT_MS = 200;
+    private static final long SLOW_SERVER_MS = 2_000;
+
+    private final AtomicLong delayMs = new AtomicLong();
+    private final AtomicInteger receivedHits = new AtomicInteger();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private HttpServer server;
+    private CircuitBreaker circuitBreaker;
+    private StatClientEwm statClient;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/stats/views", exchange -> respond(exchange,
+                "[{\"uri\":\"/events/1\",\"hits\":5}]"));
+        server.createContext("/hits", exchange -> {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            receivedHits.addAndGet(body.split("\"uri\"", -1).length - 1);
+            respond(exchange, "");
+        });
+        server.start();
+
+        circuitBreaker = CircuitBreaker.of("stat-server", CircuitBreakerConfig.custom()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .failureRateThreshold(50)
+                .waitDurationInOpenState(Duration.ofMinutes(1))
+                .build());
+        Bulkhead bulkhead = Bulkhead.of("stat-server", BulkheadConfig.custom()
+                .maxConcurrentCalls(10)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        // TTL в 1 мс: каждый вызов идёт мимо кэша, к серверу или в запасной ответ
+        ViewsCache viewsCache = new ViewsCache(meterRegistry, 100, 1, 100);
+        statClient = new StatClientEwm(
+                WebClient.create("http://localhost:" + server.getAddress().getPort()),
+                viewsCache, circuitBreaker, bulkhead, 100, 4, CALL_TIMEOUT_MS);
+        warmUp();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void viewsLatencyStaysFlatOnceBreakerOpens() {
+        assertThat(statClient.getViews(List.of(1L), false).get(1L)).isEqualTo(5L);
+
+        delayMs.set(SLOW_SERVER_MS);
+        for (int i = 0; i < 4; i++) {
+            long started = System.nanoTime();
+            Long views = statClient.getViews(List.of(1L), false).get(1L);
+            long elapsedMs = Duration.ofNanos(System.nanoTime() - started).toMillis();
+
+            assertThat(views).isEqualTo(5L);
+            assertThat(elapsedMs).isLessThan(SLOW_SERVER_MS / 2);
+        }
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        long slowest = 0;
+        for (int i = 0; i < 50; i++) {
+            long started = System.nanoTime();
+            Long views = statClient.getViews(List.of(1L), false).get(1L);
+            slowest = Math.max(slowest, Duration.ofNanos(System.nanoTime() - started).toMillis());
+            assertThat(views).isEqualTo(5L);
+        }
+        assertThat(slowest).isLessThan(CALL_TIMEOUT_MS / 2);
+    }
+
+    @Test
+    void publisherKeepsRejectedHitsUntilBreakerCloses() {
+        PendingHits pendingHits = new PendingHits(100);
+        StatHitPublisher publisher = new StatHitPublisher(statClient, pendingHits,
+                new ViewsCache(meterRegistry, 100, 60_000, 100), new ViewedEvents(), meterRegistry, 100, 2, 3_600_000);
+        try {
+            circuitBreaker.transitionToOpenState();
+            for (int i = 0; i < 5; i++) {
+                publisher.publish(hit("10.0.0." + i));
+            }
+
+            publisher.flush();
+            publisher.flush();
+
+            assertThat(receivedHits.get()).isZero();
+            assertThat(pendingHits.pendingViews("/events/1", false)).isEqualTo(5L);
+            assertThat(meterRegistry.counter("stat.hits.requeued").count()).isEqualTo(2.0);
+            assertThat(meterRegistry.counter("stat.hits.failed").count()).isEqualTo(0.0);
+
+            circuitBreaker.transitionToClosedState();
+            publisher.flush();
+
+            assertThat(receivedHits.get()).isEqualTo(5);
+            assertThat(pendingHits.pendingViews("/events/1", false)).isEqualTo(0L);
+            assertThat(meterRegistry.counter("stat.hits.sent").count()).isEqualTo(5.0);
+        } finally {
+            publisher.shutdown();
+        }
+    }
+
+    // Первый вызов поднимает Netty и пул соединений и может не уложиться в таймаут вызова
+    private void warmUp() {
+        for (int i = 0; i < 10 && statClient.getViews(List.of(1L), false).get(1L) == null; i++) {
+            circuitBreaker.reset();
+        }
+        circuitBreaker.reset();
+    }
+
+    private HitDtoRequest hit(String ip) {
+        return new HitDtoRequest("ewm-main-service", "/events/1", ip, LocalDateTime.now());
+    }
+
+    private void respond(HttpExchange exchange, String body) throws IOException {
+        try {
+            Thread.sleep(delayMs.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length == 0 ? -1 : bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}
@@ -0,0 +1,52 @@
+package ru.practicum.ewmservice.stat.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ViewsCacheTest {
+
+    private final ViewsCache viewsCache = new ViewsCache(new SimpleMeterRegistry(), 100, 60_000, 100);
+
+    @Test
+    void putUnderCurrentGenerationIsCached() {
+        long generation = viewsCache.generation("/events/1");
+        viewsCache.put("/events/1", false, 5, generation);
+
+        assertThat(viewsCache.get("/events/1", false)).isEqualTo(5L);
+    }
+
+    // Ответ, запрошенный до отправки хитов, не должен прожить в кэше весь TTL после сброса
+    @Test
+    void putFetchedBeforeInvalidateIsDropped() {
+        long generation = viewsCache.generation("/events/1");
+        viewsCache.invalidate(List.of("/events/1"));
+        viewsCache.put("/events/1", true, 5, generation);
+
+        assertThat(viewsCache.get("/events/1", true)).isNull();
+        assertThat(viewsCache.getLastKnown("/events/1", true)).isEqualTo(5L);
+    }
+
+    @Test
+    void invalidateDoesNotAffectOtherUris() {
+        long generation = viewsCache.generation("/events/2");
+        viewsCache.invalidate(List.of("/events/1"));
+        viewsCache.put("/events/2", false, 7, generation);
+
+        assertThat(viewsCache.get("/events/2", false)).isEqualTo(7L);
+    }
+
+    @Test
+    void freshFetchAfterInvalidateIsCached() {
+        viewsCache.put("/events/1", false, 5, viewsCache.generation("/events/1"));
+        viewsCache.invalidate(List.of("/events/1"));
+        assertThat(viewsCache.get("/events/1", false)).isNull();
+
+        viewsCache.put("/events/1", false, 6, viewsCache.generation("/events/1"));
+
+        assertThat(viewsCache.get("/events/1", false)).isEqualTo(6L);
+    }
+}
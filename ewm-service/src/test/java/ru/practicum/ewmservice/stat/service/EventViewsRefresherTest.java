@@ -0,0 +1,173 @@
+package ru.practicum.ewmservice.stat.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.ewmservice.compilation.service.PinnedCompilationsView;
+import ru.practicum.ewmservice.events.model.State;
+import ru.practicum.ewmservice.events.repository.EventRepository;
+import ru.practicum.ewmservice.events.repository.EventViewsRepository;
+import ru.practicum.ewmservice.stat.client.StatClientEwm;
+import ru.practicum.ewmservice.stat.client.ViewedEvents;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventViewsRefresherTest {
+
+    private static final int BATCH_SIZE = 2;
+
+    private final Map<Long, State> events = new TreeMap<>();
+    private final Map<Long, Long> serverViews = new HashMap<>();
+    private final Set<Long> unavailable = new HashSet<>();
+    private final Map<Long, Long> storedViews = new HashMap<>();
+    private final List<List<Long>> statCalls = new ArrayList<>();
+    private final ViewedEvents viewedEvents = new ViewedEvents();
+    private Consumer<List<Long>> onStatCall = ids -> { };
+
+    @Test
+    void firstRunWalksAllPublishedEventsByKeyset() {
+        publish(1L, 2L, 3L, 4L, 5L);
+        events.put(6L, State.PENDING);
+
+        refresher(3_600_000).refresh();
+
+        assertThat(statCalls).containsExactly(List.of(1L, 2L), List.of(3L, 4L), List.of(5L));
+        assertThat(storedViews).containsEntry(5L, 50L).doesNotContainKey(6L);
+    }
+
+    // Вставка события между страницами не сдвигает keyset, в отличие от OFFSET
+    @Test
+    void eventInsertedDuringWalkIsNeitherSkippedNorRepeated() {
+        publish(2L, 4L, 6L);
+        EventViewsRefresher refresher = refresher(3_600_000);
+        onStatCall = ids -> {
+            if (ids.contains(2L)) {
+                publish(1L);
+            }
+        };
+
+        refresher.refresh();
+
+        assertThat(statCalls).containsExactly(List.of(2L, 4L), List.of(6L));
+    }
+
+    @Test
+    void laterRunsRefreshOnlyViewedPublishedEvents() {
+        publish(1L, 2L, 3L);
+        events.put(4L, State.PENDING);
+        EventViewsRefresher refresher = refresher(3_600_000);
+        refresher.refresh();
+        statCalls.clear();
+
+        viewedEvents.markViewed(List.of("/events/3", "/events/4", "/events/99", "/events"));
+        refresher.refresh();
+
+        assertThat(statCalls).containsExactly(List.of(3L));
+
+        statCalls.clear();
+        refresher.refresh();
+        assertThat(statCalls).isEmpty();
+    }
+
+    @Test
+    void eventsMissingFromStatResponseAreRetriedNextRun() {
+        publish(1L, 2L);
+        EventViewsRefresher refresher = refresher(3_600_000);
+        unavailable.add(2L);
+        refresher.refresh();
+        statCalls.clear();
+
+        unavailable.clear();
+        refresher.refresh();
+
+        assertThat(statCalls).containsExactly(List.of(2L));
+        assertThat(storedViews).containsEntry(2L, 20L);
+    }
+
+    @Test
+    void fullWalkRepeatsAfterInterval() {
+        publish(1L, 2L, 3L);
+        EventViewsRefresher refresher = refresher(0);
+        refresher.refresh();
+        statCalls.clear();
+
+        refresher.refresh();
+
+        assertThat(statCalls).containsExactly(List.of(1L, 2L), List.of(3L));
+    }
+
+    private void publish(Long... ids) {
+        for (Long id : ids) {
+            events.put(id, State.PUBLISHED);
+            serverViews.put(id, id * 10);
+        }
+    }
+
+    private EventViewsRefresher refresher(long fullRefreshIntervalMs) {
+        return new EventViewsRefresher(eventRepository(), new StoredViews(), new StubStatClient(),
+                new PinnedCompilationsView(null, null, null, null), viewedEvents,
+                BATCH_SIZE, fullRefreshIntervalMs);
+    }
+
+    @SuppressWarnings("unchecked")
+    private EventRepository eventRepository() {
+        return (EventRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{EventRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findIdsByStateAfter" -> events.entrySet().stream()
+                            .filter(e -> e.getValue() == args[0] && e.getKey() > (Long) args[1])
+                            .map(Map.Entry::getKey)
+                            .limit(((Pageable) args[2]).getPageSize())
+                            .toList();
+                    case "findIdsByStateAndIdIn" -> ((Collection<Long>) args[1]).stream()
+                            .filter(id -> events.get(id) == args[0])
+                            .sorted()
+                            .toList();
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private class StubStatClient extends StatClientEwm {
+
+        StubStatClient() {
+            super(null, null, null, null, 100, 1, 1_000);
+        }
+
+        @Override
+        public Map<Long, Long> getViewsUncached(Collection<Long> eventIds, Boolean unique) {
+            List<Long> ids = List.copyOf(eventIds);
+            statCalls.add(ids);
+            onStatCall.accept(ids);
+            Map<Long, Long> views = new HashMap<>();
+            ids.stream().filter(id -> !unavailable.contains(id)).forEach(id -> views.put(id, serverViews.get(id)));
+            return views;
+        }
+    }
+
+    private class StoredViews extends EventViewsRepository {
+
+        StoredViews() {
+            super(null);
+        }
+
+        @Override
+        public List<Long> updateViews(Map<Long, Long> views) {
+            List<Long> changed = new ArrayList<>();
+            views.forEach((id, value) -> {
+                if (!value.equals(storedViews.put(id, value))) {
+                    changed.add(id);
+                }
+            });
+            return changed;
+        }
+    }
+}
@@ -6,9 +6,11 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
 import stat.dto.HitDtoRequest;
 import stat.dto.HitDtoStatResponse;
 
+import java.net.URI;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -31,16 +33,19 @@ public class StatClient {
     }
 
     public List<HitDtoStatResponse> getStats(String start, String end, List<String> uris, boolean unique) {
-        StringBuilder uri = new StringBuilder(serverUrl + "/stats?start=" + start + "&end=" + end + "&unique=" + unique);
-        for (String u : uris) {
-            uri.append("&uris=").append(u);
-        }
-
-        String finalUrl = uri.toString();
-        log.info("Вызов статистики: {}", finalUrl);
+        URI uri = UriComponentsBuilder.fromHttpUrl(serverUrl)
+                .path("/stats")
+                .queryParam("start", start)
+                .queryParam("end", end)
+                .queryParam("unique", unique)
+                .queryParam("uris", uris.toArray())
+                .encode()
+                .build()
+                .toUri();
+        log.info("Вызов статистики: {}", uri);
 
         ResponseEntity<List<HitDtoStatResponse>> response = restTemplate.exchange(
-                uri.toString(),
+                uri,
                 HttpMethod.GET,
                 null,
                 new ParameterizedTypeReference<>() {}
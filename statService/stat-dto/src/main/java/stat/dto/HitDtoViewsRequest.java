@@ -0,0 +1,17 @@
+package stat.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class HitDtoViewsRequest {
+    private String start;
+    private String end;
+    private List<String> uris;
+    private boolean unique;
+}
@@ -2,8 +2,10 @@ package stat.server;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class StatServiceApp {
     public static void main(String[] args) {
         SpringApplication.run(StatServiceApp.class, args);
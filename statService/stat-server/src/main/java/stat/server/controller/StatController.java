@@ -1,21 +1,34 @@
 package stat.server.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import stat.dto.HitDtoRequest;
 import stat.dto.HitDtoStatResponse;
+import stat.dto.HitDtoViewsRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import stat.server.service.StatService;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 @Controller
 @RequestMapping
@@ -23,7 +36,12 @@ import java.util.List;
 @RequiredArgsConstructor
 public class StatController {
 
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int NDJSON_CHUNK_SIZE = 5000;
+
     final StatService statService;
+    final ObjectMapper objectMapper;
 
     @PostMapping(path = "/hit")
     public ResponseEntity<Object> saveHit(@RequestBody HitDtoRequest hit) {
@@ -31,27 +49,132 @@ public class StatController {
         return  ResponseEntity.status(HttpStatus.CREATED).body(statService.saveHit(hit));
     }
 
+    @PostMapping(path = "/hits", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Integer>> saveHits(@RequestBody List<HitDtoRequest> hits) {
+        log.info("получен запрос на сохранение {} хитов", hits.size());
+        return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("saved", statService.saveHits(hits)));
+    }
+
+    // NDJSON читается построчно и сохраняется пачками по NDJSON_CHUNK_SIZE строк, каждая в своей транзакции,
+    // поэтому размер тела запроса не ограничен памятью. Каждая строка проверяется при чтении, и при ошибке
+    // все строки до неё сохраняются, а ответ 400 сообщает номер ошибочной строки (пустые строки тоже считаются)
+    // и число сохранённых хитов. Повторять нужно начиная с ошибочной строки
+    @PostMapping(path = "/hits", consumes = NDJSON)
+    public ResponseEntity<Map<String, Integer>> saveHitsStream(InputStream body) throws IOException {
+        log.info("получен потоковый запрос на сохранение хитов");
+        int saved = 0;
+        int lineNumber = 0;
+        List<HitDtoRequest> chunk = new ArrayList<>(NDJSON_CHUNK_SIZE);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                HitDtoRequest hit;
+                try {
+                    hit = parseHit(line);
+                    statService.validateHit(hit);
+                } catch (IllegalArgumentException e) {
+                    saved += statService.saveHits(chunk);
+                    throw new IllegalArgumentException(String.format(
+                            "Ошибка в строке %d: %s. Сохранено хитов до неё: %d", lineNumber, e.getMessage(), saved));
+                }
+                chunk.add(hit);
+                if (chunk.size() == NDJSON_CHUNK_SIZE) {
+                    saved += statService.saveHits(chunk);
+                    chunk.clear();
+                }
+            }
+            saved += statService.saveHits(chunk);
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("saved", saved));
+    }
+
     @GetMapping(path = "/stats")
     public ResponseEntity<Collection<HitDtoStatResponse>> getHits(@RequestParam String start,
                                                                   @RequestParam String end,
                                                                   @RequestParam (required = false) List<String> uris,
-                                                                  @RequestParam (defaultValue = "false") boolean unique) {
+                                                                  @RequestParam (defaultValue = "false") boolean unique,
+                                                                  @RequestParam (defaultValue = "false") boolean exact,
+                                                                  @RequestParam (required = false) Integer limit) {
         log.info("получен запрос на получение данных запроса");
-        String decodedStart = URLDecoder.decode(start, StandardCharsets.UTF_8);
-        String decodedEnd = URLDecoder.decode(end, StandardCharsets.UTF_8);
+        Collection<HitDtoStatResponse> result = statService.getHits(
+                parseDateTime(start),
+                parseDateTime(end),
+                uris != null ? uris : List.of(),
+                unique,
+                exact,
+                limit
+        );
+
+        return ResponseEntity.ok(result);
+    }
 
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        LocalDateTime startDateTime = LocalDateTime.parse(decodedStart, formatter);
-        LocalDateTime endDateTime = LocalDateTime.parse(decodedEnd, formatter);
+    // При Accept: application/x-ndjson строки пишутся в ответ по мере чтения курсора, по одному объекту на строку.
+    // Параметры проверяются до начала выгрузки, чтобы ошибка вернулась как 400, а не обрывом потока
+    @GetMapping(path = "/stats", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> getHitsStream(@RequestParam String start,
+                                                               @RequestParam String end,
+                                                               @RequestParam (required = false) List<String> uris,
+                                                               @RequestParam (defaultValue = "false") boolean unique,
+                                                               @RequestParam (required = false) Integer limit) {
+        log.info("получен потоковый запрос на получение данных запроса");
+        LocalDateTime startDateTime = parseDateTime(start);
+        LocalDateTime endDateTime = parseDateTime(end);
+        List<String> uriList = uris != null ? uris : List.of();
+        statService.validateStatsRequest(startDateTime, endDateTime, limit);
+
+        StreamingResponseBody body = out -> statService.streamHits(startDateTime, endDateTime, uriList, unique, limit,
+                stat -> writeLine(out, stat));
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
+    }
+
+    @PostMapping(path = "/stats/views")
+    public ResponseEntity<Collection<HitDtoStatResponse>> getViews(@RequestBody HitDtoViewsRequest request) {
+        log.info("получен запрос на получение просмотров для пачки uri");
+        if (request.getUris() == null || request.getUris().isEmpty()) {
+            return ResponseEntity.ok(List.of());
+        }
 
         Collection<HitDtoStatResponse> result = statService.getHits(
-                startDateTime,
-                endDateTime,
-                uris != null ? uris : List.of(),
-                unique
+                parseDateTime(request.getStart()),
+                parseDateTime(request.getEnd()),
+                request.getUris(),
+                request.isUnique(),
+                false,
+                null
         );
 
         return ResponseEntity.ok(result);
     }
 
+    private HitDtoRequest parseHit(String line) {
+        try {
+            return objectMapper.readValue(line, HitDtoRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Некорректная строка NDJSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private void writeLine(OutputStream out, HitDtoStatResponse stat) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(stat));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private LocalDateTime parseDateTime(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Начало и конец периода не могут быть null");
+        }
+        String decoded = URLDecoder.decode(value, StandardCharsets.UTF_8);
+        return LocalDateTime.parse(decoded, FORMATTER);
+    }
+
 }
@@ -0,0 +1,39 @@
+package stat.server.model;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+public enum Granularity {
+    MINUTE(ChronoUnit.MINUTES, "minute"),
+    HOUR(ChronoUnit.HOURS, "hour"),
+    DAY(ChronoUnit.DAYS, "day");
+
+    private final ChronoUnit unit;
+    private final String sqlUnit;
+
+    Granularity(ChronoUnit unit, String sqlUnit) {
+        this.unit = unit;
+        this.sqlUnit = sqlUnit;
+    }
+
+    public String getSqlUnit() {
+        return sqlUnit;
+    }
+
+    public Instant floor(Instant instant) {
+        return instant.truncatedTo(unit);
+    }
+
+    public Instant ceil(Instant instant) {
+        Instant floor = floor(instant);
+        return floor.equals(instant) ? floor : floor.plus(1, unit);
+    }
+
+    public Granularity finer() {
+        return switch (this) {
+            case DAY -> HOUR;
+            case HOUR -> MINUTE;
+            case MINUTE -> null;
+        };
+    }
+}
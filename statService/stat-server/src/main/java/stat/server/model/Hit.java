@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnTransformer;
 
 import java.time.Instant;
 
@@ -19,12 +20,16 @@ public class Hit {
     @GeneratedValue (strategy = GenerationType.IDENTITY)
     private long id;
 
-    @Column(name = "app", nullable = false)
-    private String app;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "app_id", nullable = false)
+    private HitApp app;
 
-    @Column(name = "uri", nullable = false)
-    private String uri;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "uri_id", nullable = false)
+    private HitUri uri;
 
+    // в БД хранится как inet
+    @ColumnTransformer(read = "host(ip)", write = "CAST(? AS inet)")
     @Column(name = "ip", nullable = false)
     private String ip;
 
@@ -0,0 +1,22 @@
+package stat.server.model;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+// Словарь приложений: hits хранит только app_id
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Entity
+@Table(name = "hit_apps")
+public class HitApp {
+    @Id
+    private int id;
+
+    @JsonValue
+    @Column(name = "name", nullable = false, unique = true)
+    private String name;
+}
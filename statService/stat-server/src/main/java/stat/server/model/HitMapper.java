@@ -1,17 +1,22 @@
 package stat.server.model;
 
+import lombok.RequiredArgsConstructor;
 import stat.dto.HitDtoRequest;
 import org.springframework.stereotype.Component;
+import stat.server.service.HitDictionary;
 
 import java.time.Instant;
 
 @Component
+@RequiredArgsConstructor
 public class HitMapper {
 
+    private final HitDictionary hitDictionary;
+
     public Hit dtoRequestToModel(HitDtoRequest hitDtoRequest, Instant dateTime) {
         return new Hit(hitDtoRequest.getId(),
-                hitDtoRequest.getApp(),
-                hitDtoRequest.getUri(),
+                hitDictionary.app(hitDtoRequest.getApp()),
+                hitDictionary.uri(hitDtoRequest.getUri()),
                 hitDtoRequest.getIp(), dateTime);
     }
 
@@ -0,0 +1,41 @@
+package stat.server.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "hit_rollups",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"app", "uri", "granularity", "bucket_start"}))
+public class HitRollup {
+    @Id
+    @GeneratedValue (strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @Column(name = "app", nullable = false)
+    private String app;
+
+    @Column(name = "uri", nullable = false)
+    private String uri;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "granularity", nullable = false)
+    private Granularity granularity;
+
+    @Column(name = "bucket_start", nullable = false)
+    private Instant bucketStart;
+
+    @Column(name = "hits", nullable = false)
+    private long hits;
+
+    @Column(name = "sketch")
+    private byte[] sketch;
+}
@@ -0,0 +1,22 @@
+package stat.server.model;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+// Словарь uri: hits хранит только uri_id
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Entity
+@Table(name = "hit_uris")
+public class HitUri {
+    @Id
+    private int id;
+
+    @JsonValue
+    @Column(name = "uri", nullable = false, unique = true)
+    private String uri;
+}
@@ -0,0 +1,7 @@
+package stat.server.model;
+
+public record HitVisitor(
+        String app,
+        String uri,
+        String ip
+) {}
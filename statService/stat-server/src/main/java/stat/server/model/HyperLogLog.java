@@ -0,0 +1,142 @@
+package stat.server.model;
+
+import java.nio.charset.StandardCharsets;
+
+// Регистр хранится в одном байте, поэтому скетч можно обновлять в SQL через set_byte/get_byte
+public class HyperLogLog {
+
+    private static final int MIN_PRECISION = 4;
+    private static final int MAX_PRECISION = 16;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Точность HyperLogLog должна быть от "
+                    + MIN_PRECISION + " до " + MAX_PRECISION);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    private HyperLogLog(int precision, byte[] registers) {
+        this.precision = precision;
+        this.registers = registers;
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        int precision = Integer.numberOfTrailingZeros(bytes.length);
+        if (bytes.length != 1 << precision || precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Некорректный размер скетча: " + bytes.length);
+        }
+        return new HyperLogLog(precision, bytes.clone());
+    }
+
+    // Стандартная ошибка HLL ~ 1.04 / sqrt(m)
+    public static int precisionFor(double error) {
+        if (error <= 0 || error >= 1) {
+            throw new IllegalArgumentException("Допустимая ошибка должна быть в интервале (0, 1)");
+        }
+        double registers = Math.pow(1.04 / error, 2);
+        int precision = (int) Math.ceil(Math.log(registers) / Math.log(2));
+        return Math.max(MIN_PRECISION, Math.min(MAX_PRECISION, precision));
+    }
+
+    public static int registerIndex(String value, int precision) {
+        return (int) (hash(value) >>> (64 - precision));
+    }
+
+    public static int registerRank(String value, int precision) {
+        long remaining = hash(value) << precision;
+        return Math.min(Long.numberOfLeadingZeros(remaining), 64 - precision) + 1;
+    }
+
+    public void add(String value) {
+        int index = registerIndex(value, precision);
+        int rank = registerRank(value, precision);
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    public HyperLogLog merge(HyperLogLog other) {
+        HyperLogLog target = precision <= other.precision ? copy() : other.copy();
+        HyperLogLog source = precision <= other.precision ? other : this;
+        byte[] folded = source.foldTo(target.precision);
+        for (int i = 0; i < target.registers.length; i++) {
+            if (folded[i] > target.registers[i]) {
+                target.registers[i] = folded[i];
+            }
+        }
+        return target;
+    }
+
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double alpha = switch (m) {
+            case 16 -> 0.673;
+            case 32 -> 0.697;
+            case 64 -> 0.709;
+            default -> 0.7213 / (1 + 1.079 / m);
+        };
+        double estimate = alpha * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public byte[] toBytes() {
+        return registers.clone();
+    }
+
+    private HyperLogLog copy() {
+        return new HyperLogLog(precision, registers.clone());
+    }
+
+    // Перевод регистров на меньшую точность: отброшенные биты индекса становятся началом хвоста хеша
+    private byte[] foldTo(int targetPrecision) {
+        if (targetPrecision == precision) {
+            return registers;
+        }
+        int shift = precision - targetPrecision;
+        byte[] folded = new byte[1 << targetPrecision];
+        for (int i = 0; i < registers.length; i++) {
+            if (registers[i] == 0) {
+                continue;
+            }
+            int dropped = i & ((1 << shift) - 1);
+            int rank = dropped != 0
+                    ? Integer.numberOfLeadingZeros(dropped) - (32 - shift) + 1
+                    : registers[i] + shift;
+            int index = i >>> shift;
+            if (rank > folded[index]) {
+                folded[index] = (byte) rank;
+            }
+        }
+        return folded;
+    }
+
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
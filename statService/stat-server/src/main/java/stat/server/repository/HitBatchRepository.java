@@ -0,0 +1,126 @@
+package stat.server.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import stat.server.model.Granularity;
+import stat.server.model.Hit;
+import stat.server.model.HyperLogLog;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Пакетная запись через JDBC: IDENTITY-ключ у Hit отключает batch-вставки в Hibernate
+@Repository
+public class HitBatchRepository {
+
+    private static final String INSERT_HIT = "INSERT INTO hits (app_id, uri_id, ip, date_time) VALUES (?, ?, CAST(? AS inet), ?)";
+
+    private static final String INCREMENT_ROLLUP = "INSERT INTO hit_rollups (app, uri, granularity, bucket_start, hits) " +
+            "VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (app, uri, granularity, bucket_start) " +
+            "DO UPDATE SET hits = hit_rollups.hits + EXCLUDED.hits, sketch = NULL";
+
+    // Новый скетч собирается на стороне БД из нулей, в запрос уходит только номер регистра и ранг
+    private static final String INCREMENT_ROLLUP_WITH_SKETCH = "INSERT INTO hit_rollups " +
+            "(app, uri, granularity, bucket_start, hits, sketch) " +
+            "VALUES (?, ?, ?, ?, ?, set_byte(decode(repeat('00', ?), 'hex'), ?, ?)) " +
+            "ON CONFLICT (app, uri, granularity, bucket_start) " +
+            "DO UPDATE SET hits = hit_rollups.hits + EXCLUDED.hits, " +
+            "sketch = CASE WHEN hit_rollups.sketch IS NULL OR length(hit_rollups.sketch) <> length(EXCLUDED.sketch) " +
+            "THEN NULL ELSE set_byte(hit_rollups.sketch, ?, GREATEST(get_byte(hit_rollups.sketch, ?), ?)) END";
+
+    // Строки агрегатов обновляются в одном порядке во всех транзакциях, иначе встречные пачки могут взаимно заблокироваться
+    private static final Comparator<RollupKey> KEY_ORDER = Comparator.comparing(RollupKey::app)
+            .thenComparing(RollupKey::uri)
+            .thenComparing(RollupKey::bucketStart);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public HitBatchRepository(JdbcTemplate jdbcTemplate, @Value("${stat.hits.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    public void insertHits(List<Hit> hits) {
+        jdbcTemplate.batchUpdate(INSERT_HIT, hits, batchSize, (ps, hit) -> {
+            ps.setInt(1, hit.getApp().getId());
+            ps.setInt(2, hit.getUri().getId());
+            ps.setString(3, hit.getIp());
+            setInstant(ps, 4, hit.getDateTime());
+        });
+    }
+
+    public void incrementRollups(Granularity granularity, Map<RollupKey, Long> counts) {
+        List<Map.Entry<RollupKey, Long>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort(Map.Entry.comparingByKey(KEY_ORDER));
+        jdbcTemplate.batchUpdate(INCREMENT_ROLLUP, entries, batchSize, (ps, entry) -> {
+            ps.setString(1, entry.getKey().app());
+            ps.setString(2, entry.getKey().uri());
+            ps.setString(3, granularity.name());
+            setInstant(ps, 4, entry.getKey().bucketStart());
+            ps.setLong(5, entry.getValue());
+        });
+    }
+
+    // Пачка сворачивается в (бакет, регистр) -> максимальный ранг: одна строка на занятый регистр, а не на хит.
+    // Число хитов бакета прибавляется первой из его строк, остальные прибавляют 0
+    public void incrementRollupsWithSketches(Granularity granularity, List<Hit> hits, int precision) {
+        Map<RollupKey, Long> counts = new HashMap<>();
+        Map<RollupKey, Map<Integer, Integer>> ranks = new HashMap<>();
+        for (Hit hit : hits) {
+            RollupKey key = new RollupKey(hit.getApp().getName(), hit.getUri().getUri(),
+                    granularity.floor(hit.getDateTime()));
+            counts.merge(key, 1L, Long::sum);
+            ranks.computeIfAbsent(key, k -> new TreeMap<>())
+                    .merge(HyperLogLog.registerIndex(hit.getIp(), precision),
+                            HyperLogLog.registerRank(hit.getIp(), precision), Math::max);
+        }
+
+        List<SketchUpdate> updates = new ArrayList<>();
+        List<RollupKey> keys = new ArrayList<>(counts.keySet());
+        keys.sort(KEY_ORDER);
+        for (RollupKey key : keys) {
+            long keyHits = counts.get(key);
+            for (Map.Entry<Integer, Integer> register : ranks.get(key).entrySet()) {
+                updates.add(new SketchUpdate(key, keyHits, register.getKey(), register.getValue()));
+                keyHits = 0;
+            }
+        }
+
+        int sketchSize = 1 << precision;
+        jdbcTemplate.batchUpdate(INCREMENT_ROLLUP_WITH_SKETCH, updates, batchSize, (ps, update) -> {
+            ps.setString(1, update.key().app());
+            ps.setString(2, update.key().uri());
+            ps.setString(3, granularity.name());
+            setInstant(ps, 4, update.key().bucketStart());
+            ps.setLong(5, update.hits());
+            ps.setInt(6, sketchSize);
+            ps.setInt(7, update.register());
+            ps.setInt(8, update.rank());
+            ps.setInt(9, update.register());
+            ps.setInt(10, update.register());
+            ps.setInt(11, update.rank());
+        });
+    }
+
+    private void setInstant(PreparedStatement ps, int index, Instant instant) throws SQLException {
+        ps.setObject(index, OffsetDateTime.ofInstant(instant, ZoneOffset.UTC));
+    }
+
+    public record RollupKey(String app, String uri, Instant bucketStart) {
+    }
+
+    private record SketchUpdate(RollupKey key, long hits, int register, int rank) {
+    }
+}
@@ -0,0 +1,29 @@
+package stat.server.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// Вставка значений в словари hit_apps и hit_uris
+@Repository
+@RequiredArgsConstructor
+public class HitDictionaryRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Вызывается до открытия транзакции записи хитов: id попадает в кэш процесса и не должен пропасть при её откате.
+    // NEVER вместо REQUIRES_NEW не держит второе соединение из пула на время вставки в словарь
+    @Transactional(propagation = Propagation.NEVER)
+    public int internApp(String name) {
+        jdbcTemplate.update("INSERT INTO hit_apps (name) VALUES (?) ON CONFLICT (name) DO NOTHING", name);
+        return jdbcTemplate.queryForObject("SELECT id FROM hit_apps WHERE name = ?", Integer.class, name);
+    }
+
+    @Transactional(propagation = Propagation.NEVER)
+    public int internUri(String uri) {
+        jdbcTemplate.update("INSERT INTO hit_uris (uri) VALUES (?) ON CONFLICT (uri) DO NOTHING", uri);
+        return jdbcTemplate.queryForObject("SELECT id FROM hit_uris WHERE uri = ?", Integer.class, uri);
+    }
+}
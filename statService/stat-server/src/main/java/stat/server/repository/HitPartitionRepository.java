@@ -0,0 +1,78 @@
+package stat.server.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+// Помесячные секции таблицы hits (см. миграцию V3__partition_hits.sql)
+@Repository
+@RequiredArgsConstructor
+public class HitPartitionRepository {
+
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("'hits_'yyyy_MM");
+
+    private static final String LIST_PARTITIONS = "SELECT c.relname FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid " +
+            "JOIN pg_class p ON p.oid = i.inhparent " +
+            "WHERE p.relname = 'hits' AND c.relname <> 'hits_default'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public static String partitionName(YearMonth month) {
+        return NAME_FORMAT.format(month);
+    }
+
+    public static YearMonth partitionMonth(String name) {
+        return YearMonth.parse(name, NAME_FORMAT);
+    }
+
+    public List<String> findPartitions() {
+        return jdbcTemplate.queryForList(LIST_PARTITIONS, String.class);
+    }
+
+    // Хиты месяца, успевшие попасть в hits_default, переносятся в новую секцию до ATTACH,
+    // иначе PostgreSQL откажет в присоединении пересекающейся секции.
+    // Advisory-блокировка сериализует обслуживание секций между экземплярами, блокировка hits_default
+    // не даёт вставить хит этого месяца между DELETE и ATTACH. Возвращает false, если секцию уже создал другой экземпляр
+    @Transactional
+    public boolean createPartition(YearMonth month) {
+        String name = partitionName(month);
+        OffsetDateTime from = month.atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+        OffsetDateTime to = from.plusMonths(1);
+
+        lockMaintenance();
+        if (Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name))) {
+            return false;
+        }
+        jdbcTemplate.execute("LOCK TABLE hits_default IN EXCLUSIVE MODE");
+        jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE hits INCLUDING DEFAULTS)");
+        jdbcTemplate.update("WITH moved AS (DELETE FROM hits_default WHERE date_time >= ? AND date_time < ? RETURNING *) " +
+                "INSERT INTO " + name + " SELECT * FROM moved", from, to);
+        jdbcTemplate.execute("ALTER TABLE hits ATTACH PARTITION " + name +
+                " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+        return true;
+    }
+
+    // Агрегаты hit_rollups удаляемого месяца и более ранних удаляются в той же транзакции:
+    // иначе неуникальные просмотры из hit_rollups расходились бы с уникальными и точными, которые считаются по hits
+    @Transactional
+    public void dropPartition(String name) {
+        OffsetDateTime to = partitionMonth(name).plusMonths(1).atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+
+        lockMaintenance();
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + name);
+        jdbcTemplate.update("DELETE FROM hit_rollups WHERE bucket_start < ?", to);
+    }
+
+    // Снимается при завершении транзакции
+    private void lockMaintenance() {
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock(hashtext('hits_partitions'))");
+    }
+}
@@ -0,0 +1,50 @@
+package stat.server.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import stat.dto.HitDtoStatResponse;
+import stat.server.model.Granularity;
+import stat.server.model.HitRollup;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface HitRollupRepository extends JpaRepository<HitRollup, Long> {
+
+    // Досчитывает хиты с id после afterId поверх уже накопленных агрегатов; скетч бакета при этом устаревает
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO hit_rollups (app, uri, granularity, bucket_start, hits) " +
+            "SELECT a.name, u.uri, :granularity, " +
+            "date_trunc(:sqlUnit, h.date_time AT TIME ZONE 'UTC') AT TIME ZONE 'UTC', COUNT(*) " +
+            "FROM hits h JOIN hit_apps a ON a.id = h.app_id JOIN hit_uris u ON u.id = h.uri_id " +
+            "WHERE h.id > :afterId AND h.id <= :upToId " +
+            "GROUP BY a.id, u.id, date_trunc(:sqlUnit, h.date_time AT TIME ZONE 'UTC') " +
+            "ON CONFLICT (app, uri, granularity, bucket_start) " +
+            "DO UPDATE SET hits = hit_rollups.hits + EXCLUDED.hits, sketch = NULL", nativeQuery = true)
+    int backfill(String granularity, String sqlUnit, long afterId, long upToId);
+
+    @Query("SELECT new stat.dto.HitDtoStatResponse(r.app, r.uri, SUM(r.hits)) FROM HitRollup r " +
+            "WHERE r.granularity = :granularity AND r.bucketStart >= :start AND r.bucketStart < :end " +
+            "GROUP BY r.app, r.uri")
+    List<HitDtoStatResponse> getStats(Granularity granularity, Instant start, Instant end);
+
+    @Query("SELECT new stat.dto.HitDtoStatResponse(r.app, r.uri, SUM(r.hits)) FROM HitRollup r " +
+            "WHERE r.granularity = :granularity AND r.bucketStart >= :start AND r.bucketStart < :end " +
+            "AND r.uri IN :uris " +
+            "GROUP BY r.app, r.uri")
+    List<HitDtoStatResponse> getStatsByUris(Granularity granularity, Instant start, Instant end, List<String> uris);
+
+    @Query("SELECT r FROM HitRollup r " +
+            "WHERE r.granularity = :granularity AND r.bucketStart >= :start AND r.bucketStart < :end")
+    List<HitRollup> getBuckets(Granularity granularity, Instant start, Instant end);
+
+    @Query("SELECT r FROM HitRollup r " +
+            "WHERE r.granularity = :granularity AND r.bucketStart >= :start AND r.bucketStart < :end " +
+            "AND r.uri IN :uris")
+    List<HitRollup> getBucketsByUris(Granularity granularity, Instant start, Instant end, List<String> uris);
+}
@@ -0,0 +1,37 @@
+package stat.server.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+// Единственная строка hit_rollup_state (см. миграцию V5__hit_rollup_state.sql)
+@Repository
+@RequiredArgsConstructor
+public class HitRollupStateRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Блокировка строки не даёт двум экземплярам досчитать один и тот же хвост дважды
+    public RollupState lockState() {
+        return jdbcTemplate.queryForObject(
+                "SELECT rollups_enabled, last_hit_id FROM hit_rollup_state WHERE id = 1 FOR UPDATE",
+                (rs, rowNum) -> new RollupState(rs.getBoolean("rollups_enabled"), rs.getLong("last_hit_id")));
+    }
+
+    public long findMaxHitId() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT max(id) FROM hits", Long.class);
+        return maxId != null ? maxId : 0L;
+    }
+
+    public void markEnabled() {
+        jdbcTemplate.update("UPDATE hit_rollup_state SET rollups_enabled = true WHERE id = 1");
+    }
+
+    public void markDisabled(long lastHitId) {
+        jdbcTemplate.update("UPDATE hit_rollup_state SET rollups_enabled = false, last_hit_id = ? WHERE id = 1",
+                lastHitId);
+    }
+
+    public record RollupState(boolean rollupsEnabled, long lastHitId) {
+    }
+}
@@ -0,0 +1,55 @@
+package stat.server.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import stat.dto.HitDtoStatResponse;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Группировка, сортировка и top-N считаются в БД, строки читаются курсором по fetch-size штук.
+// Курсор PostgreSQL работает только внутри транзакции, поэтому метод транзакционный
+@Repository
+public class HitStatsStreamRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public HitStatsStreamRepository(DataSource dataSource,
+                                    @Value("${stat.stats.stream.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamStats(Instant start, Instant end, List<String> uris, boolean unique, Integer limit,
+                            Consumer<HitDtoStatResponse> consumer) {
+        String sql = "SELECT a.name AS app, u.uri AS uri, " +
+                (unique ? "COUNT(DISTINCT h.ip)" : "COUNT(*)") + " AS hits " +
+                "FROM hits h JOIN hit_apps a ON a.id = h.app_id JOIN hit_uris u ON u.id = h.uri_id " +
+                "WHERE h.date_time BETWEEN ? AND ? " +
+                (uris.isEmpty() ? "" : "AND u.uri = ANY(?) ") +
+                "GROUP BY a.id, u.id " +
+                "ORDER BY hits DESC" +
+                (limit != null ? " LIMIT ?" : "");
+
+        jdbcTemplate.query(sql, ps -> {
+            int index = 1;
+            ps.setObject(index++, OffsetDateTime.ofInstant(start, ZoneOffset.UTC));
+            ps.setObject(index++, OffsetDateTime.ofInstant(end, ZoneOffset.UTC));
+            if (!uris.isEmpty()) {
+                ps.setArray(index++, ps.getConnection().createArrayOf("text", uris.toArray()));
+            }
+            if (limit != null) {
+                ps.setInt(index, limit);
+            }
+        }, rs -> {
+            consumer.accept(new HitDtoStatResponse(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+        });
+    }
+}
@@ -1,21 +1,59 @@
 package stat.server.repository;
 
+import stat.dto.HitDtoStatResponse;
 import stat.server.model.Hit;
+import stat.server.model.HitVisitor;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
-import java.util.Collection;
 import java.util.List;
 
+// Группировка идёт по целочисленным id словарей; имена в SELECT допустимы, так как функционально зависят от первичного ключа
 @Repository
 public interface StatRepository extends JpaRepository<Hit,Long> {
 
-    @Query("SELECT h FROM Hit h WHERE h.dateTime BETWEEN :start AND :end")
-    Collection<Hit> getStats(Instant start, Instant end);
+    @Query("SELECT new stat.dto.HitDtoStatResponse(a.name, u.uri, COUNT(h)) FROM Hit h JOIN h.app a JOIN h.uri u " +
+            "WHERE h.dateTime BETWEEN :start AND :end " +
+            "GROUP BY a.id, u.id " +
+            "ORDER BY COUNT(h) DESC")
+    List<HitDtoStatResponse> getStats(Instant start, Instant end);
 
-    @Query("SELECT h FROM Hit h WHERE h.dateTime BETWEEN :start AND :end AND h.uri IN :uris")
-    Collection<Hit> getStatsByUris(Instant start, Instant end, List<String> uris);
+    @Query("SELECT new stat.dto.HitDtoStatResponse(a.name, u.uri, COUNT(h)) FROM Hit h JOIN h.app a JOIN h.uri u " +
+            "WHERE h.dateTime BETWEEN :start AND :end AND u.uri IN :uris " +
+            "GROUP BY a.id, u.id " +
+            "ORDER BY COUNT(h) DESC")
+    List<HitDtoStatResponse> getStatsByUris(Instant start, Instant end, List<String> uris);
+
+    @Query("SELECT new stat.dto.HitDtoStatResponse(a.name, u.uri, COUNT(DISTINCT h.ip)) FROM Hit h JOIN h.app a JOIN h.uri u " +
+            "WHERE h.dateTime BETWEEN :start AND :end " +
+            "GROUP BY a.id, u.id " +
+            "ORDER BY COUNT(DISTINCT h.ip) DESC")
+    List<HitDtoStatResponse> getUniqueStats(Instant start, Instant end);
+
+    @Query("SELECT new stat.dto.HitDtoStatResponse(a.name, u.uri, COUNT(DISTINCT h.ip)) FROM Hit h JOIN h.app a JOIN h.uri u " +
+            "WHERE h.dateTime BETWEEN :start AND :end AND u.uri IN :uris " +
+            "GROUP BY a.id, u.id " +
+            "ORDER BY COUNT(DISTINCT h.ip) DESC")
+    List<HitDtoStatResponse> getUniqueStatsByUris(Instant start, Instant end, List<String> uris);
+
+    @Query("SELECT new stat.dto.HitDtoStatResponse(a.name, u.uri, COUNT(h)) FROM Hit h JOIN h.app a JOIN h.uri u " +
+            "WHERE h.dateTime >= :start AND h.dateTime < :end " +
+            "GROUP BY a.id, u.id")
+    List<HitDtoStatResponse> getStatsInRange(Instant start, Instant end);
+
+    @Query("SELECT new stat.dto.HitDtoStatResponse(a.name, u.uri, COUNT(h)) FROM Hit h JOIN h.app a JOIN h.uri u " +
+            "WHERE h.dateTime >= :start AND h.dateTime < :end AND u.uri IN :uris " +
+            "GROUP BY a.id, u.id")
+    List<HitDtoStatResponse> getStatsByUrisInRange(Instant start, Instant end, List<String> uris);
+
+    @Query("SELECT DISTINCT new stat.server.model.HitVisitor(a.name, u.uri, h.ip) FROM Hit h JOIN h.app a JOIN h.uri u " +
+            "WHERE h.dateTime >= :start AND h.dateTime < :end")
+    List<HitVisitor> getVisitorsInRange(Instant start, Instant end);
+
+    @Query("SELECT DISTINCT new stat.server.model.HitVisitor(a.name, u.uri, h.ip) FROM Hit h JOIN h.app a JOIN h.uri u " +
+            "WHERE h.dateTime >= :start AND h.dateTime < :end AND u.uri IN :uris")
+    List<HitVisitor> getVisitorsByUrisInRange(Instant start, Instant end, List<String> uris);
 
 }
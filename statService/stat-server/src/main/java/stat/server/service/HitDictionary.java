@@ -0,0 +1,43 @@
+package stat.server.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import stat.server.model.HitApp;
+import stat.server.model.HitUri;
+import stat.server.repository.HitDictionaryRepository;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Кэш словарей приложений и uri. Записи неизменяемы, поэтому кэш не инвалидируется;
+// число различных приложений и uri мало по сравнению с числом хитов
+@Component
+@RequiredArgsConstructor
+public class HitDictionary {
+
+    private final HitDictionaryRepository hitDictionaryRepository;
+    private final Map<String, HitApp> apps = new ConcurrentHashMap<>();
+    private final Map<String, HitUri> uris = new ConcurrentHashMap<>();
+
+    // Запрос к БД выполняется вне computeIfAbsent: блокировка корзины ConcurrentHashMap
+    // на время JDBC-вызова закрепила бы виртуальный поток. Повторная вставка безопасна благодаря ON CONFLICT
+    public HitApp app(String name) {
+        HitApp app = apps.get(name);
+        if (app != null) {
+            return app;
+        }
+        app = new HitApp(hitDictionaryRepository.internApp(name), name);
+        HitApp existing = apps.putIfAbsent(name, app);
+        return existing != null ? existing : app;
+    }
+
+    public HitUri uri(String uri) {
+        HitUri hitUri = uris.get(uri);
+        if (hitUri != null) {
+            return hitUri;
+        }
+        hitUri = new HitUri(hitDictionaryRepository.internUri(uri), uri);
+        HitUri existing = uris.putIfAbsent(uri, hitUri);
+        return existing != null ? existing : hitUri;
+    }
+}
@@ -0,0 +1,72 @@
+package stat.server.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import stat.server.repository.HitPartitionRepository;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+// Заранее создаёт помесячные секции hits и удаляет секции старше срока хранения.
+// Удаление секции вместо DELETE не оставляет мёртвых строк; вместе с секцией удаляются агрегаты hit_rollups того же срока
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HitPartitionManager {
+
+    private final HitPartitionRepository hitPartitionRepository;
+
+    @Value("${stat.hits.partitions.months-ahead:2}")
+    private int monthsAhead;
+
+    // 0 - хранить хиты бессрочно
+    @Value("${stat.hits.retention-months:0}")
+    private int retentionMonths;
+
+    // Ошибка обслуживания не должна останавливать запуск: пока секции нет, хиты попадают в hits_default,
+    // а следующий запуск по расписанию повторит попытку
+    @PostConstruct
+    @Scheduled(cron = "${stat.hits.partitions.cron:0 0 3 * * *}", zone = "UTC")
+    public void maintain() {
+        try {
+            maintainPartitions();
+        } catch (DataAccessException e) {
+            log.error("Не удалось обслужить секции хитов", e);
+        }
+    }
+
+    private void maintainPartitions() {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        List<String> partitions = hitPartitionRepository.findPartitions();
+
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            if (!partitions.contains(HitPartitionRepository.partitionName(month))
+                    && hitPartitionRepository.createPartition(month)) {
+                log.info("Создана секция хитов за {}", month);
+            }
+        }
+
+        if (retentionMonths <= 0) {
+            return;
+        }
+        YearMonth oldestKept = current.minusMonths(retentionMonths);
+        for (String partition : partitions) {
+            try {
+                if (HitPartitionRepository.partitionMonth(partition).isBefore(oldestKept)) {
+                    hitPartitionRepository.dropPartition(partition);
+                    log.info("Удалена секция хитов {} старше {} мес.", partition, retentionMonths);
+                }
+            } catch (DateTimeParseException e) {
+                log.warn("Секция {} не соответствует схеме именования hits_yyyy_MM", partition);
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package stat.server.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import stat.server.model.Granularity;
+import stat.server.repository.HitRollupRepository;
+import stat.server.repository.HitRollupStateRepository;
+
+// Досчитывает hit_rollups по хитам, записанным пока агрегаты не велись, до того как сервер начнёт принимать запросы.
+// При выключенных агрегатах запоминает последний учтённый хит, чтобы после включения начать с него
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HitRollupBackfill {
+
+    private final HitRollupRepository hitRollupRepository;
+    private final HitRollupStateRepository hitRollupStateRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${stat.rollup.enabled:true}")
+    private boolean rollupEnabled;
+
+    @PostConstruct
+    public void backfill() {
+        transactionTemplate.executeWithoutResult(status -> {
+            HitRollupStateRepository.RollupState state = hitRollupStateRepository.lockState();
+            if (!rollupEnabled) {
+                if (state.rollupsEnabled()) {
+                    long lastHitId = hitRollupStateRepository.findMaxHitId();
+                    hitRollupStateRepository.markDisabled(lastHitId);
+                    log.info("Агрегаты выключены, учтены хиты до id {}", lastHitId);
+                }
+                return;
+            }
+            if (state.rollupsEnabled()) {
+                return;
+            }
+
+            long upToId = hitRollupStateRepository.findMaxHitId();
+            for (Granularity granularity : Granularity.values()) {
+                int rows = hitRollupRepository.backfill(granularity.name(), granularity.getSqlUnit(),
+                        state.lastHitId(), upToId);
+                log.info("Дозаполнено {} агрегатов уровня {} по хитам с id {} по {}",
+                        rows, granularity, state.lastHitId() + 1, upToId);
+            }
+            hitRollupStateRepository.markEnabled();
+        });
+    }
+}
@@ -0,0 +1,61 @@
+package stat.server.service;
+
+import java.util.regex.Pattern;
+
+// Проверка ip без InetAddress.getByName, который для не-литералов обращается к DNS.
+// Принимает то же, что колонка inet для одиночного адреса: IPv4 и IPv6, в том числе с IPv4 в конце
+public final class IpAddresses {
+
+    private static final Pattern IPV4 = Pattern.compile(
+            "(25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)(\\.(25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)){3}");
+
+    private static final Pattern IPV6_GROUP = Pattern.compile("[0-9a-fA-F]{1,4}");
+
+    private IpAddresses() {
+    }
+
+    public static boolean isValid(String ip) {
+        return ip != null && (IPV4.matcher(ip).matches() || isIpv6(ip));
+    }
+
+    private static boolean isIpv6(String ip) {
+        int lastColon = ip.lastIndexOf(':');
+        if (lastColon < 0) {
+            return false;
+        }
+        // IPv4 в конце занимает две группы
+        String tail = ip.substring(lastColon + 1);
+        String address = ip;
+        if (tail.contains(".")) {
+            if (!IPV4.matcher(tail).matches()) {
+                return false;
+            }
+            address = ip.substring(0, lastColon + 1) + "0:0";
+        }
+
+        int gap = address.indexOf("::");
+        if (gap < 0) {
+            return countGroups(address) == 8;
+        }
+        if (address.indexOf("::", gap + 1) >= 0) {
+            return false;
+        }
+        int left = countGroups(address.substring(0, gap));
+        int right = countGroups(address.substring(gap + 2));
+        return left >= 0 && right >= 0 && left + right <= 7;
+    }
+
+    // -1, если какая-то группа некорректна
+    private static int countGroups(String part) {
+        if (part.isEmpty()) {
+            return 0;
+        }
+        String[] groups = part.split(":", -1);
+        for (String group : groups) {
+            if (!IPV6_GROUP.matcher(group).matches()) {
+                return -1;
+            }
+        }
+        return groups.length;
+    }
+}
@@ -0,0 +1,48 @@
+package stat.server.service;
+
+import org.springframework.stereotype.Component;
+import stat.server.model.Granularity;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+// Разбивает полуинтервал [start, end) на целые бакеты от дней до finest, остаток отдаётся сырой таблице
+@Component
+public class RollupPlanner {
+
+    public List<Segment> plan(Instant start, Instant end, Granularity finest) {
+        List<Segment> segments = new ArrayList<>();
+        plan(start, end, Granularity.DAY, finest, segments);
+        return segments;
+    }
+
+    private void plan(Instant from, Instant to, Granularity granularity, Granularity finest, List<Segment> segments) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        if (granularity == null) {
+            segments.add(new Segment(null, from, to));
+            return;
+        }
+
+        Granularity finer = granularity == finest ? null : granularity.finer();
+        Instant alignedStart = granularity.ceil(from);
+        Instant alignedEnd = granularity.floor(to);
+        if (!alignedStart.isBefore(alignedEnd)) {
+            plan(from, to, finer, finest, segments);
+            return;
+        }
+
+        plan(from, alignedStart, finer, finest, segments);
+        segments.add(new Segment(granularity, alignedStart, alignedEnd));
+        plan(alignedEnd, to, finer, finest, segments);
+    }
+
+    // granularity == null означает, что отрезок читается из сырой таблицы hits
+    public record Segment(Granularity granularity, Instant start, Instant end) {
+        public boolean isRaw() {
+            return granularity == null;
+        }
+    }
+}
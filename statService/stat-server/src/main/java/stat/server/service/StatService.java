@@ -8,14 +8,32 @@ import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 public interface StatService {
 
     ResponseEntity<Object> saveHit(HitDtoRequest hit);
 
+    int saveHits(List<HitDtoRequest> hits);
+
+    // Проверка отдельного хита: потоковый импорт проверяет строки по мере чтения, чтобы назвать ошибочную
+    void validateHit(HitDtoRequest hit);
+
     Collection<HitDtoStatResponse> getHits(LocalDateTime start,
                                            LocalDateTime end,
                                            List<String> uris,
-                                           boolean unique);
+                                           boolean unique,
+                                           boolean exact,
+                                           Integer limit);
+
+    // Проверка параметров отдельно от выгрузки: ошибка должна вернуться до начала потокового ответа
+    void validateStatsRequest(LocalDateTime start, LocalDateTime end, Integer limit);
+
+    void streamHits(LocalDateTime start,
+                    LocalDateTime end,
+                    List<String> uris,
+                    boolean unique,
+                    Integer limit,
+                    Consumer<HitDtoStatResponse> consumer);
 }
@@ -1,94 +1,260 @@
 package stat.server.service;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.support.TransactionTemplate;
 import stat.dto.HitDtoRequest;
 import stat.dto.HitDtoStatResponse;
 import lombok.RequiredArgsConstructor;
+import stat.server.model.Granularity;
 import stat.server.model.Hit;
 import stat.server.model.HitMapper;
+import stat.server.model.HitRollup;
+import stat.server.model.HitVisitor;
+import stat.server.model.HyperLogLog;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import stat.server.repository.HitBatchRepository;
+import stat.server.repository.HitRollupRepository;
+import stat.server.repository.HitStatsStreamRepository;
 import stat.server.repository.StatRepository;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class StatServiceImpl implements StatService {
 
     final StatRepository statRepository;
+    final HitRollupRepository hitRollupRepository;
+    final HitBatchRepository hitBatchRepository;
+    final HitStatsStreamRepository hitStatsStreamRepository;
     final HitMapper hitMapper;
+    final RollupPlanner rollupPlanner;
+    final TransactionTemplate transactionTemplate;
     private static final LocalDateTime MIN_DATE = LocalDateTime.of(1999, 1, 1, 0, 0);
 
+    @Value("${stat.rollup.enabled:true}")
+    private boolean rollupEnabled;
+
+    @Value("${stat.unique.approximate:false}")
+    private boolean approximateUnique;
+
+    @Value("${stat.unique.error:0.02}")
+    private double uniqueError;
+
+    // Маппинг заполняет словари app и uri до открытия транзакции записи (см. HitDictionaryRepository)
     @Override
     public ResponseEntity<Object> saveHit(HitDtoRequest hitDtoRequest) {
-        saveValidate(hitDtoRequest);
+        validateHit(hitDtoRequest);
 
         Hit hit = hitMapper.dtoRequestToModel(hitDtoRequest, Instant.now());
-        return ResponseEntity.ok(statRepository.save(hit));
+        Hit saved = transactionTemplate.execute(status -> {
+            Hit result = statRepository.save(hit);
+            updateRollups(List.of(result));
+            return result;
+        });
+        return ResponseEntity.ok(saved);
+    }
+
+    @Override
+    public int saveHits(List<HitDtoRequest> hitDtoRequests) {
+        if (hitDtoRequests.isEmpty()) {
+            return 0;
+        }
+        hitDtoRequests.forEach(this::validateHit);
+
+        Instant now = Instant.now();
+        List<Hit> hits = hitDtoRequests.stream()
+                .map(hitDtoRequest -> hitMapper.dtoRequestToModel(hitDtoRequest, now))
+                .toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            hitBatchRepository.insertHits(hits);
+            updateRollups(hits);
+        });
+        return hits.size();
+    }
+
+    @Override
+    public void validateHit(HitDtoRequest hitDtoRequest) {
+        if (hitDtoRequest.getApp() == null || hitDtoRequest.getApp().isBlank()) {
+            throw new IllegalArgumentException("App не может быть null или пустым");
+        }
+        if (hitDtoRequest.getUri() == null || hitDtoRequest.getUri().isBlank()) {
+            throw new IllegalArgumentException("uri не может быть null или пустым");
+        }
+        if (hitDtoRequest.getIp() == null || hitDtoRequest.getIp().isBlank()) {
+            throw new IllegalArgumentException("ip не может быть null или пустым");
+        }
+        if (!IpAddresses.isValid(hitDtoRequest.getIp())) {
+            throw new IllegalArgumentException("Некорректный ip: " + hitDtoRequest.getIp());
+        }
     }
 
+    // Ответы всех веток уже отсортированы по убыванию хитов, поэтому limit - это top-N.
+    // Агрегаты из hit_rollups малы и сливаются в памяти, остальное считается в БД вместе с LIMIT
     @Override
-    public Collection<HitDtoStatResponse> getHits(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
-        requestValidate(start, end, uris);
+    public Collection<HitDtoStatResponse> getHits(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                                  boolean unique, boolean exact, Integer limit) {
+        validateStatsRequest(start, end, limit);
+        Collection<HitDtoStatResponse> result = getAllHits(start, end, uris, unique, exact, limit);
+        return limit != null && result.size() > limit
+                ? result.stream().limit(limit).toList()
+                : result;
+    }
 
+    @Override
+    public void validateStatsRequest(LocalDateTime start, LocalDateTime end, Integer limit) {
+        requestValidate(start, end, List.of());
+        if (limit != null && limit <= 0) {
+            throw new IllegalArgumentException("limit должен быть положительным");
+        }
+    }
 
+    // Потоковая выгрузка всегда точная и идёт по сырой таблице: память не зависит от числа строк
+    @Override
+    public void streamHits(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique, Integer limit,
+                           Consumer<HitDtoStatResponse> consumer) {
+        validateStatsRequest(start, end, limit);
+        hitStatsStreamRepository.streamStats(toInstant(start), toInstant(end), uris, unique, limit, consumer);
+    }
 
+    private Collection<HitDtoStatResponse> getAllHits(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                                      boolean unique, boolean exact, Integer limit) {
         Instant startInstant = toInstant(start);
         Instant endInstant = toInstant(end);
 
-        Collection<Hit> listOfHits = uris.isEmpty()
-                ? statRepository.getStats(startInstant, endInstant)
-                : statRepository.getStatsByUris(startInstant, endInstant, uris);
-
-        Map<String, Map<String, Set<String>>> uniqueHits = new HashMap<>();
-
         if (unique) {
-            for (Hit hit : listOfHits) {
-                uniqueHits.computeIfAbsent(hit.getApp(), a -> new HashMap<>())
-                        .computeIfAbsent(hit.getUri(), u -> new HashSet<>())
-                        .add(hit.getIp());
+            if (rollupEnabled && approximateUnique && !exact) {
+                Optional<List<HitDtoStatResponse>> approximate =
+                        getApproximateUniqueHits(startInstant, endInstant, uris);
+                if (approximate.isPresent()) {
+                    return approximate.get();
+                }
             }
+            return getRawHits(startInstant, endInstant, uris, true, limit);
+        }
+        if (rollupEnabled) {
+            return getRolledUpHits(startInstant, endInstant, uris);
+        }
+        return getRawHits(startInstant, endInstant, uris, false, limit);
+    }
 
-            List<HitDtoStatResponse> stats = new ArrayList<>();
-            for (Map.Entry<String, Map<String, Set<String>>> appEntry : uniqueHits.entrySet()) {
-                String app = appEntry.getKey();
-                Map<String, Set<String>> uriMap = appEntry.getValue();
+    private Collection<HitDtoStatResponse> getRawHits(Instant start, Instant end, List<String> uris,
+                                                      boolean unique, Integer limit) {
+        if (limit != null) {
+            List<HitDtoStatResponse> result = new ArrayList<>();
+            hitStatsStreamRepository.streamStats(start, end, uris, unique, limit, result::add);
+            return result;
+        }
+        if (unique) {
+            return uris.isEmpty()
+                    ? statRepository.getUniqueStats(start, end)
+                    : statRepository.getUniqueStatsByUris(start, end, uris);
+        }
+        return uris.isEmpty()
+                ? statRepository.getStats(start, end)
+                : statRepository.getStatsByUris(start, end, uris);
+    }
 
-                for (Map.Entry<String, Set<String>> uriEntry : uriMap.entrySet()) {
-                    String uri = uriEntry.getKey();
-                    int hits = uriEntry.getValue().size();
+    private void updateRollups(List<Hit> hits) {
+        if (!rollupEnabled) {
+            return;
+        }
+        int precision = HyperLogLog.precisionFor(uniqueError);
+        for (Granularity granularity : Granularity.values()) {
+            if (approximateUnique && granularity != Granularity.MINUTE) {
+                hitBatchRepository.incrementRollupsWithSketches(granularity, hits, precision);
+                continue;
+            }
+            Map<HitBatchRepository.RollupKey, Long> counts = hits.stream()
+                    .collect(Collectors.groupingBy(
+                            hit -> new HitBatchRepository.RollupKey(hit.getApp().getName(), hit.getUri().getUri(),
+                                    granularity.floor(hit.getDateTime())),
+                            Collectors.counting()));
+            hitBatchRepository.incrementRollups(granularity, counts);
+        }
+    }
 
-                    HitDtoStatResponse hitDtoStatResponse = new HitDtoStatResponse(app, uri, hits);
-                    stats.add(hitDtoStatResponse);
-                }
+    // Интервал [start, end] разбивается на целые дни, часы и минуты из hit_rollups,
+    // а неровные края досчитываются по сырой таблице hits
+    private Collection<HitDtoStatResponse> getRolledUpHits(Instant start, Instant end, List<String> uris) {
+        Map<String, Map<String, Long>> totals = new HashMap<>();
+        for (RollupPlanner.Segment segment : rollupPlanner.plan(start, toExclusive(end), Granularity.MINUTE)) {
+            List<HitDtoStatResponse> stats;
+            if (segment.isRaw()) {
+                stats = uris.isEmpty()
+                        ? statRepository.getStatsInRange(segment.start(), segment.end())
+                        : statRepository.getStatsByUrisInRange(segment.start(), segment.end(), uris);
+            } else {
+                stats = uris.isEmpty()
+                        ? hitRollupRepository.getStats(segment.granularity(), segment.start(), segment.end())
+                        : hitRollupRepository.getStatsByUris(segment.granularity(), segment.start(), segment.end(), uris);
+            }
+            for (HitDtoStatResponse stat : stats) {
+                totals.computeIfAbsent(stat.getApp(), a -> new HashMap<>())
+                        .merge(stat.getUri(), stat.getHits(), Long::sum);
             }
-            stats.sort((h1, h2) -> Long.compare(h2.getHits(), h1.getHits()));
-            return stats;
         }
-        Map<String, Map<String, Long>> normalHits = new HashMap<>();
-        for (Hit hit : listOfHits) {
-            normalHits
-                    .computeIfAbsent(hit.getApp(), a -> new HashMap<>())
-                    .merge(hit.getUri(), 1L, Long::sum);
 
+        List<HitDtoStatResponse> result = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Long>> appEntry : totals.entrySet()) {
+            for (Map.Entry<String, Long> uriEntry : appEntry.getValue().entrySet()) {
+                result.add(new HitDtoStatResponse(appEntry.getKey(), uriEntry.getKey(), uriEntry.getValue()));
+            }
         }
-        List<HitDtoStatResponse> stats = new ArrayList<>();
+        result.sort((h1, h2) -> Long.compare(h2.getHits(), h1.getHits()));
+        return result;
+    }
+
+    // Скетчи хранятся только для часов и дней; если в каком-то бакете скетча нет
+    // (данные до включения режима), возвращается пустой результат и считаем точно
+    private Optional<List<HitDtoStatResponse>> getApproximateUniqueHits(Instant start, Instant end, List<String> uris) {
+        Map<String, Map<String, HyperLogLog>> sketches = new HashMap<>();
+        int precision = HyperLogLog.precisionFor(uniqueError);
+
+        for (RollupPlanner.Segment segment : rollupPlanner.plan(start, toExclusive(end), Granularity.HOUR)) {
+            if (segment.isRaw()) {
+                List<HitVisitor> visitors = uris.isEmpty()
+                        ? statRepository.getVisitorsInRange(segment.start(), segment.end())
+                        : statRepository.getVisitorsByUrisInRange(segment.start(), segment.end(), uris);
+                for (HitVisitor visitor : visitors) {
+                    sketches.computeIfAbsent(visitor.app(), a -> new HashMap<>())
+                            .computeIfAbsent(visitor.uri(), u -> new HyperLogLog(precision))
+                            .add(visitor.ip());
+                }
+                continue;
+            }
 
-        for (Map.Entry<String, Map<String, Long>> appEntry : normalHits.entrySet()) {
-            String app = appEntry.getKey();
-            Map<String, Long> uriMap = appEntry.getValue();
-            for (Map.Entry<String, Long> uriEntry : uriMap.entrySet()) {
-                String uri = uriEntry.getKey();
-                Long statCount = uriEntry.getValue();
+            List<HitRollup> buckets = uris.isEmpty()
+                    ? hitRollupRepository.getBuckets(segment.granularity(), segment.start(), segment.end())
+                    : hitRollupRepository.getBucketsByUris(segment.granularity(), segment.start(), segment.end(), uris);
+            for (HitRollup bucket : buckets) {
+                if (bucket.getSketch() == null) {
+                    return Optional.empty();
+                }
+                sketches.computeIfAbsent(bucket.getApp(), a -> new HashMap<>())
+                        .merge(bucket.getUri(), HyperLogLog.fromBytes(bucket.getSketch()), HyperLogLog::merge);
+            }
+        }
 
-                stats.add(new HitDtoStatResponse(app, uri, statCount));
+        List<HitDtoStatResponse> result = new ArrayList<>();
+        for (Map.Entry<String, Map<String, HyperLogLog>> appEntry : sketches.entrySet()) {
+            for (Map.Entry<String, HyperLogLog> uriEntry : appEntry.getValue().entrySet()) {
+                result.add(new HitDtoStatResponse(appEntry.getKey(), uriEntry.getKey(), uriEntry.getValue().estimate()));
             }
         }
-        stats.sort((h1, h2) -> Long.compare(h2.getHits(), h1.getHits()));
-        return stats;
+        result.sort((h1, h2) -> Long.compare(h2.getHits(), h1.getHits()));
+        return Optional.of(result);
+    }
+
+    private Instant toExclusive(Instant end) {
+        return end.plus(1, ChronoUnit.MICROS);
     }
 
     private void requestValidate(LocalDateTime start, LocalDateTime end, List<String> uris) {
@@ -105,15 +271,6 @@ public class StatServiceImpl implements StatService {
             }
         }
 
-    private void saveValidate(HitDtoRequest hitDtoRequest) {
-        if (hitDtoRequest.getApp() == null || hitDtoRequest.getApp().isBlank()) {
-            throw new IllegalArgumentException("App не может быть null или пустым");
-        }
-        if (hitDtoRequest.getIp() == null || hitDtoRequest.getIp().isBlank()) {
-            throw new IllegalArgumentException("ip не может быть null или пустым");
-        }
-    }
-
     private Instant toInstant(LocalDateTime localDateTime) {
         return localDateTime != null
                 ? localDateTime.atZone(ZoneId.systemDefault()).toInstant()
@@ -0,0 +1,15 @@
+-- Агрегаты хитов появились после базовой схемы: V1 пропускается для существующей БД (baseline-version 1),
+-- поэтому таблица создаётся отдельной миграцией, которая выполняется и на принятой как baseline базе
+CREATE TABLE IF NOT EXISTS hit_rollups (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    app VARCHAR(512) NOT NULL,
+    uri VARCHAR(512) NOT NULL,
+    granularity VARCHAR(16) NOT NULL,
+    bucket_start TIMESTAMP WITH TIME ZONE NOT NULL,
+    hits BIGINT NOT NULL,
+    sketch BYTEA,
+    UNIQUE (app, uri, granularity, bucket_start)
+);
+
+-- Таблица могла быть создана ещё ddl-auto: update до появления скетчей
+ALTER TABLE hit_rollups ADD COLUMN IF NOT EXISTS sketch BYTEA;
@@ -0,0 +1,7 @@
+CREATE TABLE IF NOT EXISTS hits (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    app VARCHAR(255) NOT NULL,
+    uri VARCHAR(255) NOT NULL,
+    ip VARCHAR(255) NOT NULL,
+    date_time TIMESTAMP WITH TIME ZONE NOT NULL
+);
@@ -0,0 +1,5 @@
+-- Выборки /stats по uri и диапазону времени
+CREATE INDEX IF NOT EXISTS hits_uri_date_time_idx ON hits (uri, date_time);
+
+-- Выборки /stats без фильтра по uri и бэкфилл агрегатов
+CREATE INDEX IF NOT EXISTS hits_date_time_idx ON hits (date_time);
@@ -0,0 +1,49 @@
+-- hits секционируется по date_time помесячно; первичный ключ секционированной таблицы обязан включать ключ секционирования
+ALTER TABLE hits RENAME TO hits_unpartitioned;
+
+-- hits_id_seq - identity-последовательность переименованной таблицы и удаляется вместе с ней,
+-- поэтому у секционированной таблицы своя последовательность, продолжающая старые id
+CREATE SEQUENCE hits_part_id_seq;
+SELECT setval('hits_part_id_seq', COALESCE((SELECT max(id) FROM hits_unpartitioned), 0) + 1, false);
+
+CREATE TABLE hits (
+    id BIGINT NOT NULL DEFAULT nextval('hits_part_id_seq'),
+    app VARCHAR(255) NOT NULL,
+    uri VARCHAR(255) NOT NULL,
+    ip VARCHAR(255) NOT NULL,
+    date_time TIMESTAMP WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (id, date_time)
+) PARTITION BY RANGE (date_time);
+
+ALTER SEQUENCE hits_part_id_seq OWNED BY hits.id;
+
+-- Секция по умолчанию принимает хиты вне созданных месяцев, HitPartitionManager переносит их при создании секции
+CREATE TABLE hits_default PARTITION OF hits DEFAULT;
+
+-- Секции для уже накопленных данных и двух следующих месяцев
+DO $$
+DECLARE
+    month_start TIMESTAMP WITH TIME ZONE;
+    last_month TIMESTAMP WITH TIME ZONE;
+BEGIN
+    SELECT date_trunc('month', COALESCE(min(date_time), now()) AT TIME ZONE 'UTC') AT TIME ZONE 'UTC'
+    INTO month_start
+    FROM hits_unpartitioned;
+    last_month := (date_trunc('month', now() AT TIME ZONE 'UTC') + INTERVAL '2 months') AT TIME ZONE 'UTC';
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF hits FOR VALUES FROM (%L) TO (%L)',
+                'hits_' || to_char(month_start AT TIME ZONE 'UTC', 'YYYY_MM'),
+                month_start,
+                ((month_start AT TIME ZONE 'UTC') + INTERVAL '1 month') AT TIME ZONE 'UTC');
+        month_start := ((month_start AT TIME ZONE 'UTC') + INTERVAL '1 month') AT TIME ZONE 'UTC';
+    END LOOP;
+END $$;
+
+INSERT INTO hits (id, app, uri, ip, date_time)
+SELECT id, app, uri, ip, date_time FROM hits_unpartitioned;
+
+DROP TABLE hits_unpartitioned;
+
+CREATE INDEX IF NOT EXISTS hits_uri_date_time_idx ON hits (uri, date_time);
+
+CREATE INDEX IF NOT EXISTS hits_date_time_idx ON hits (date_time);
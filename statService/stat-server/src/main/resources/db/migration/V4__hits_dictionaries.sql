@@ -0,0 +1,59 @@
+-- app и uri выносятся в словари, hits ссылается на них целочисленными id; ip хранится как inet
+CREATE TABLE IF NOT EXISTS hit_apps (
+    id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS hit_uris (
+    id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    uri VARCHAR(512) NOT NULL UNIQUE
+);
+
+INSERT INTO hit_apps (name) SELECT DISTINCT app FROM hits;
+INSERT INTO hit_uris (uri) SELECT DISTINCT uri FROM hits;
+
+ALTER TABLE hits ADD COLUMN app_id INT, ADD COLUMN uri_id INT;
+
+UPDATE hits h SET app_id = a.id, uri_id = u.id
+FROM hit_apps a, hit_uris u
+WHERE a.name = h.app AND u.uri = h.uri;
+
+DROP INDEX IF EXISTS hits_uri_date_time_idx;
+
+-- До перехода на inet: адреса с пробелами обрезаются, остальные некорректные заменяются на 0.0.0.0,
+-- чтобы хиты сохранились в общих счётчиках. Число замен выводится в журнал миграции
+UPDATE hits SET ip = btrim(ip) WHERE ip <> btrim(ip);
+
+DO $$
+DECLARE
+    address TEXT;
+    replaced BIGINT := 0;
+    affected BIGINT;
+BEGIN
+    FOR address IN SELECT DISTINCT ip FROM hits LOOP
+        BEGIN
+            PERFORM address::inet;
+            IF address LIKE '%/%' THEN
+                RAISE invalid_text_representation;
+            END IF;
+        EXCEPTION WHEN invalid_text_representation THEN
+            UPDATE hits SET ip = '0.0.0.0' WHERE ip = address;
+            GET DIAGNOSTICS affected = ROW_COUNT;
+            replaced := replaced + affected;
+        END;
+    END LOOP;
+    RAISE NOTICE 'Некорректных ip заменено на 0.0.0.0: %', replaced;
+END $$;
+
+ALTER TABLE hits
+    ALTER COLUMN app_id SET NOT NULL,
+    ALTER COLUMN uri_id SET NOT NULL,
+    DROP COLUMN app,
+    DROP COLUMN uri,
+    ALTER COLUMN ip TYPE inet USING ip::inet;
+
+ALTER TABLE hits
+    ADD CONSTRAINT hits_app_id_fkey FOREIGN KEY (app_id) REFERENCES hit_apps (id),
+    ADD CONSTRAINT hits_uri_id_fkey FOREIGN KEY (uri_id) REFERENCES hit_uris (id);
+
+CREATE INDEX IF NOT EXISTS hits_uri_id_date_time_idx ON hits (uri_id, date_time);
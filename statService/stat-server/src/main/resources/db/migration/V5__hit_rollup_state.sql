@@ -0,0 +1,12 @@
+-- Отметка, до какого хита hit_rollups полны. Пока агрегаты ведутся онлайн, rollups_enabled = true;
+-- при выключении запоминается последний учтённый id, и при включении досчитываются только хиты после него
+CREATE TABLE IF NOT EXISTS hit_rollup_state (
+    id INT PRIMARY KEY CHECK (id = 1),
+    rollups_enabled BOOLEAN NOT NULL,
+    last_hit_id BIGINT NOT NULL
+);
+
+-- Пустые агрегаты при непустых хитах означают, что их ещё не заполняли: досчитываются все хиты
+INSERT INTO hit_rollup_state (id, rollups_enabled, last_hit_id)
+SELECT 1, EXISTS (SELECT 1 FROM hit_rollups) OR NOT EXISTS (SELECT 1 FROM hits), 0
+ON CONFLICT (id) DO NOTHING;
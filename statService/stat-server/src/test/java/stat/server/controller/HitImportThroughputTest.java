@@ -0,0 +1,68 @@
+package stat.server.controller;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Пропускная способность потокового импорта NDJSON против настоящего PostgreSQL: разбор строк, проверка,
+// пакетная вставка в hits и обновление hit_rollups. Прогрев отделён, чтобы JIT и пул соединений не влияли на замер
+@SpringBootTest
+@EnabledIfEnvironmentVariable(named = "STAT_TEST_DB_URL", matches = ".+")
+class HitImportThroughputTest {
+
+    private static final int WARM_UP_HITS = 20_000;
+    private static final int MEASURED_HITS = 200_000;
+    private static final long MIN_HITS_PER_SECOND = 50_000;
+
+    @Autowired
+    private StatController statController;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("STAT_TEST_DB_URL"));
+        registry.add("spring.datasource.username", () -> env("STAT_TEST_DB_USERNAME", "user"));
+        registry.add("spring.datasource.password", () -> env("STAT_TEST_DB_PASSWORD", "password"));
+    }
+
+    @Test
+    void ndjsonImportKeepsUpWithFiftyThousandHitsPerSecond() throws IOException {
+        String app = "throughput-" + UUID.randomUUID();
+        statController.saveHitsStream(ndjson(app, WARM_UP_HITS));
+
+        byte[] body = ndjson(app, MEASURED_HITS).readAllBytes();
+        long started = System.nanoTime();
+        statController.saveHitsStream(new ByteArrayInputStream(body));
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+        long hitsPerSecond = MEASURED_HITS * 1_000L / Math.max(1, elapsed.toMillis());
+        assertThat(hitsPerSecond).as("хитов в секунду за %s", elapsed).isGreaterThan(MIN_HITS_PER_SECOND);
+    }
+
+    // 1000 uri и 65536 ip: в пачке много разных строк hit_rollups, как у настоящего трафика
+    private static ByteArrayInputStream ndjson(String app, int hits) {
+        StringBuilder body = new StringBuilder(hits * 80);
+        for (int i = 0; i < hits; i++) {
+            body.append("{\"app\":\"").append(app)
+                    .append("\",\"uri\":\"/events/").append(i % 1_000)
+                    .append("\",\"ip\":\"10.1.").append((i >> 8) & 255).append('.').append(i & 255)
+                    .append("\"}\n");
+        }
+        return new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? value : defaultValue;
+    }
+}
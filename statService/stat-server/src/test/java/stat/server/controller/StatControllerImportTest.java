@@ -0,0 +1,107 @@
+package stat.server.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import stat.dto.HitDtoRequest;
+import stat.dto.HitDtoStatResponse;
+import stat.server.service.StatService;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StatControllerImportTest {
+
+    private final List<String> savedIps = new ArrayList<>();
+    private final StatController controller = new StatController(new RecordingStatService(), new ObjectMapper());
+
+    // Пустые строки входят в нумерацию, иначе номер не совпал бы со строкой в файле
+    @Test
+    void errorReportsFailingLineCountingBlankLines() {
+        String body = hit("10.0.0.1") + "\n\n" + hit("10.0.0.2") + "\n   \n" + hit("not-an-ip") + "\n" + hit("10.0.0.3");
+
+        assertThatThrownBy(() -> controller.saveHitsStream(stream(body)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Ошибка в строке 5")
+                .hasMessageContaining("Сохранено хитов до неё: 2");
+        assertThat(savedIps).containsExactly("10.0.0.1", "10.0.0.2");
+    }
+
+    @Test
+    void malformedJsonReportsItsLine() {
+        String body = hit("10.0.0.1") + "\n{\"app\":";
+
+        assertThatThrownBy(() -> controller.saveHitsStream(stream(body)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Ошибка в строке 2")
+                .hasMessageContaining("Сохранено хитов до неё: 1");
+    }
+
+    @Test
+    void validStreamIsSavedInFull() throws IOException {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 12_000; i++) {
+            body.append(hit("10.0." + (i / 256) % 256 + "." + i % 256)).append('\n');
+        }
+
+        ResponseEntity<?> response = controller.saveHitsStream(stream(body.toString()));
+
+        assertThat(response.getBody()).isEqualTo(Map.of("saved", 12_000));
+        assertThat(savedIps).hasSize(12_000);
+    }
+
+    private static String hit(String ip) {
+        return "{\"app\":\"ewm-main-service\",\"uri\":\"/events/1\",\"ip\":\"" + ip + "\"}";
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private class RecordingStatService implements StatService {
+
+        @Override
+        public ResponseEntity<Object> saveHit(HitDtoRequest hit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int saveHits(List<HitDtoRequest> hits) {
+            hits.forEach(hit -> savedIps.add(hit.getIp()));
+            return hits.size();
+        }
+
+        @Override
+        public void validateHit(HitDtoRequest hit) {
+            if (!hit.getIp().contains(".")) {
+                throw new IllegalArgumentException("Некорректный ip: " + hit.getIp());
+            }
+        }
+
+        @Override
+        public Collection<HitDtoStatResponse> getHits(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                                      boolean unique, boolean exact, Integer limit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void validateStatsRequest(LocalDateTime start, LocalDateTime end, Integer limit) {
+        }
+
+        @Override
+        public void streamHits(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                               Integer limit, Consumer<HitDtoStatResponse> consumer) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
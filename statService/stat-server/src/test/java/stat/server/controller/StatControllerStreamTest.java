@@ -0,0 +1,111 @@
+package stat.server.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import stat.dto.HitDtoRequest;
+import stat.dto.HitDtoStatResponse;
+import stat.server.service.StatService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StatControllerStreamTest {
+
+    private static final String START = "2024-01-01 00:00:00";
+    private static final String END = "2024-02-01 00:00:00";
+
+    private final List<HitDtoStatResponse> stats = List.of(
+            new HitDtoStatResponse("ewm-main-service", "/events/2", 7L),
+            new HitDtoStatResponse("ewm-main-service", "/events/1", 3L));
+    private final AtomicInteger streamCalls = new AtomicInteger();
+    private Integer streamedLimit;
+    private final StatController controller = new StatController(new StreamingStatService(), new ObjectMapper());
+
+    @Test
+    void statsAreWrittenOneJsonObjectPerLine() throws IOException {
+        ResponseEntity<StreamingResponseBody> response = controller.getHitsStream(START, END, null, false, null);
+
+        assertThat(response.getHeaders().getContentType())
+                .isEqualTo(MediaType.parseMediaType("application/x-ndjson"));
+        String[] lines = write(response).split("\n", -1);
+
+        assertThat(lines.length).isEqualTo(3);
+        assertThat(lines[0]).isEqualTo("{\"app\":\"ewm-main-service\",\"uri\":\"/events/2\",\"hits\":7}");
+        assertThat(lines[1]).isEqualTo("{\"app\":\"ewm-main-service\",\"uri\":\"/events/1\",\"hits\":3}");
+        assertThat(lines[2]).isEqualTo("");
+    }
+
+    // Выгрузка начинается только при записи тела: до этого ответ ещё может стать ошибкой 400
+    @Test
+    void invalidRequestFailsBeforeStreamingStarts() {
+        assertThatThrownBy(() -> controller.getHitsStream(START, END, null, false, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(streamCalls.get()).isZero();
+    }
+
+    @Test
+    void nothingIsReadUntilBodyIsWritten() throws IOException {
+        ResponseEntity<StreamingResponseBody> response = controller.getHitsStream(START, END, null, true, 5);
+        assertThat(streamCalls.get()).isZero();
+
+        write(response);
+        assertThat(streamCalls.get()).isEqualTo(1);
+        assertThat(streamedLimit).isEqualTo(5);
+    }
+
+    private static String write(ResponseEntity<StreamingResponseBody> response) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private class StreamingStatService implements StatService {
+
+        @Override
+        public ResponseEntity<Object> saveHit(HitDtoRequest hit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int saveHits(List<HitDtoRequest> hits) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void validateHit(HitDtoRequest hit) {
+        }
+
+        @Override
+        public Collection<HitDtoStatResponse> getHits(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                                      boolean unique, boolean exact, Integer limit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void validateStatsRequest(LocalDateTime start, LocalDateTime end, Integer limit) {
+            if (limit != null && limit <= 0) {
+                throw new IllegalArgumentException("limit должен быть положительным");
+            }
+        }
+
+        @Override
+        public void streamHits(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                               Integer limit, Consumer<HitDtoStatResponse> consumer) {
+            streamCalls.incrementAndGet();
+            streamedLimit = limit;
+            stats.forEach(consumer);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package stat.server.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HyperLogLogTest {
+
+    private static final int PRECISION = HyperLogLog.precisionFor(0.02);
+
+    @Test
+    void precisionForStatedErrorGivesEnoughRegisters() {
+        double standardError = 1.04 / Math.sqrt(1 << PRECISION);
+
+        assertThat(standardError).isLessThanOrEqualTo(0.02);
+    }
+
+    // Три стандартные ошибки: хеш детерминирован, поэтому тест не плавает от запуска к запуску
+    @Test
+    void estimateStaysWithinErrorBound() {
+        double tolerance = 3 * 1.04 / Math.sqrt(1 << PRECISION);
+
+        for (int cardinality : new int[]{1_000, 10_000, 100_000, 1_000_000}) {
+            HyperLogLog sketch = new HyperLogLog(PRECISION);
+            for (int i = 0; i < cardinality; i++) {
+                sketch.add(ip(i));
+            }
+
+            double error = Math.abs(sketch.estimate() - cardinality) / (double) cardinality;
+            assertThat(error).as("ошибка для %d значений", cardinality).isLessThan(tolerance);
+        }
+    }
+
+    @Test
+    void repeatedValuesDoNotChangeEstimate() {
+        HyperLogLog once = new HyperLogLog(PRECISION);
+        HyperLogLog repeated = new HyperLogLog(PRECISION);
+        for (int i = 0; i < 5_000; i++) {
+            once.add(ip(i));
+            for (int j = 0; j < 3; j++) {
+                repeated.add(ip(i));
+            }
+        }
+
+        assertThat(repeated.toBytes()).isEqualTo(once.toBytes());
+    }
+
+    @Test
+    void mergeOfSketchesEqualsSketchOfUnion() {
+        HyperLogLog left = new HyperLogLog(PRECISION);
+        HyperLogLog right = new HyperLogLog(PRECISION);
+        HyperLogLog union = new HyperLogLog(PRECISION);
+        for (int i = 0; i < 20_000; i++) {
+            (i % 2 == 0 ? left : right).add(ip(i));
+            union.add(ip(i));
+        }
+
+        assertThat(left.merge(right).toBytes()).isEqualTo(union.toBytes());
+        assertThat(right.merge(left).toBytes()).isEqualTo(union.toBytes());
+    }
+
+    @Test
+    void mergeOfDifferentPrecisionsFoldsToCoarserOne() {
+        HyperLogLog fine = new HyperLogLog(PRECISION);
+        HyperLogLog coarse = new HyperLogLog(PRECISION - 2);
+        HyperLogLog expected = new HyperLogLog(PRECISION - 2);
+        for (int i = 0; i < 20_000; i++) {
+            (i < 10_000 ? fine : coarse).add(ip(i));
+            expected.add(ip(i));
+        }
+
+        HyperLogLog merged = fine.merge(coarse);
+
+        assertThat(merged.toBytes()).hasSize(1 << (PRECISION - 2));
+        assertThat(merged.toBytes()).isEqualTo(expected.toBytes());
+    }
+
+    @Test
+    void mergeDoesNotModifyOperands() {
+        HyperLogLog left = new HyperLogLog(PRECISION);
+        HyperLogLog right = new HyperLogLog(PRECISION);
+        left.add("10.0.0.1");
+        right.add("10.0.0.2");
+        byte[] leftBefore = left.toBytes();
+        byte[] rightBefore = right.toBytes();
+
+        left.merge(right);
+
+        assertThat(left.toBytes()).isEqualTo(leftBefore);
+        assertThat(right.toBytes()).isEqualTo(rightBefore);
+    }
+
+    @Test
+    void bytesRoundTrip() {
+        HyperLogLog sketch = new HyperLogLog(PRECISION);
+        for (int i = 0; i < 10_000; i++) {
+            sketch.add(ip(i));
+        }
+
+        HyperLogLog restored = HyperLogLog.fromBytes(sketch.toBytes());
+
+        assertThat(restored.toBytes()).isEqualTo(sketch.toBytes());
+        assertThat(restored.estimate()).isEqualTo(sketch.estimate());
+    }
+
+    @Test
+    void fromBytesRejectsInvalidSize() {
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(new byte[100]))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(new byte[1 << 2]))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(new byte[1 << 17]))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // На этих функциях держится обновление скетча в SQL через set_byte, поэтому они обязаны совпадать с add()
+    @Test
+    void registerIndexAndRankMatchAdd() {
+        byte[] expected = new byte[1 << PRECISION];
+        HyperLogLog sketch = new HyperLogLog(PRECISION);
+        for (int i = 0; i < 50_000; i++) {
+            String value = ip(i);
+            int index = HyperLogLog.registerIndex(value, PRECISION);
+            int rank = HyperLogLog.registerRank(value, PRECISION);
+            assertThat(index).isBetween(0, (1 << PRECISION) - 1);
+            assertThat(rank).isBetween(1, 64 - PRECISION + 1);
+            expected[index] = (byte) Math.max(expected[index], rank);
+            sketch.add(value);
+        }
+
+        assertThat(sketch.toBytes()).isEqualTo(expected);
+    }
+
+    @Test
+    void singleAddSetsOnlyItsRegister() {
+        String value = "192.168.0.1";
+        HyperLogLog sketch = new HyperLogLog(PRECISION);
+
+        sketch.add(value);
+
+        byte[] registers = sketch.toBytes();
+        int index = HyperLogLog.registerIndex(value, PRECISION);
+        assertThat(registers[index]).isEqualTo((byte) HyperLogLog.registerRank(value, PRECISION));
+        for (int i = 0; i < registers.length; i++) {
+            if (i != index) {
+                assertThat(registers[i]).isZero();
+            }
+        }
+    }
+
+    @Test
+    void precisionForRejectsOutOfRangeError() {
+        assertThatThrownBy(() -> HyperLogLog.precisionFor(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HyperLogLog.precisionFor(1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String ip(int i) {
+        return (i >>> 24 & 0xff) + "." + (i >>> 16 & 0xff) + "." + (i >>> 8 & 0xff) + "." + (i & 0xff);
+    }
+}
@@ -0,0 +1,73 @@
+package stat.server.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Удаление секции по сроку хранения против настоящего PostgreSQL (STAT_TEST_DB_URL).
+// Месяцы взяты из далёкого прошлого, чтобы не задеть секции, которые создаёт HitPartitionManager
+@SpringBootTest
+@EnabledIfEnvironmentVariable(named = "STAT_TEST_DB_URL", matches = ".+")
+class HitPartitionRetentionTest {
+
+    private static final YearMonth DROPPED = YearMonth.of(2001, 1);
+    private static final YearMonth KEPT = YearMonth.of(2001, 3);
+
+    @Autowired
+    private HitPartitionRepository hitPartitionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("STAT_TEST_DB_URL"));
+        registry.add("spring.datasource.username", () -> env("STAT_TEST_DB_USERNAME", "user"));
+        registry.add("spring.datasource.password", () -> env("STAT_TEST_DB_PASSWORD", "password"));
+    }
+
+    @Test
+    void droppingPartitionPrunesRollupsOfThatMonth() {
+        String app = "retention-" + UUID.randomUUID();
+        hitPartitionRepository.createPartition(DROPPED);
+        insertRollup(app, "DAY", DROPPED.atDay(15));
+        insertRollup(app, "HOUR", DROPPED.atEndOfMonth());
+        insertRollup(app, "DAY", KEPT.atDay(1));
+
+        hitPartitionRepository.dropPartition(HitPartitionRepository.partitionName(DROPPED));
+
+        assertThat(hitPartitionRepository.findPartitions())
+                .doesNotContain(HitPartitionRepository.partitionName(DROPPED));
+        assertThat(jdbcTemplate.queryForObject("SELECT min(bucket_start) FROM hit_rollups WHERE app = ?",
+                OffsetDateTime.class, app).toInstant())
+                .isEqualTo(start(KEPT.atDay(1)).toInstant());
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM hit_rollups WHERE app = ?", Long.class, app))
+                .isEqualTo(1L);
+    }
+
+    private void insertRollup(String app, String granularity, LocalDate day) {
+        jdbcTemplate.update("INSERT INTO hit_rollups (app, uri, granularity, bucket_start, hits) VALUES (?, ?, ?, ?, 1)",
+                app, "/events/1", granularity, start(day));
+    }
+
+    private static OffsetDateTime start(LocalDate day) {
+        return day.atStartOfDay().atOffset(ZoneOffset.UTC);
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? value : defaultValue;
+    }
+}
@@ -0,0 +1,84 @@
+package stat.server.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Планы запросов статистики против настоящего PostgreSQL (STAT_TEST_DB_URL, STAT_TEST_DB_USERNAME, STAT_TEST_DB_PASSWORD).
+// hits секционирована, поэтому в плане фигурируют индексы секций с тем же суффиксом имени
+@SpringBootTest
+@EnabledIfEnvironmentVariable(named = "STAT_TEST_DB_URL", matches = ".+")
+class HitQueryIndexTest {
+
+    private static final Pattern INDEX_NAME = Pattern.compile("\"Index Name\"\\s*:\\s*\"([^\"]+)\"");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("STAT_TEST_DB_URL"));
+        registry.add("spring.datasource.username", () -> env("STAT_TEST_DB_USERNAME", "user"));
+        registry.add("spring.datasource.password", () -> env("STAT_TEST_DB_PASSWORD", "password"));
+    }
+
+    @Test
+    void statsByUrisUseUriDateIndex() {
+        Set<String> indexes = indexesUsedBy("SELECT COUNT(*) FROM hits h " +
+                "WHERE h.uri_id = 1 " +
+                "AND h.date_time BETWEEN TIMESTAMPTZ '2024-01-01' AND TIMESTAMPTZ '2024-02-01'");
+
+        assertThat(indexes.stream().anyMatch(name -> name.endsWith("uri_id_date_time_idx")))
+                .as("индексы %s", indexes).isTrue();
+    }
+
+    @Test
+    void statsInRangeUseDateIndex() {
+        Set<String> indexes = indexesUsedBy("SELECT COUNT(*) FROM hits h " +
+                "WHERE h.date_time BETWEEN TIMESTAMPTZ '2024-01-01' AND TIMESTAMPTZ '2024-02-01'");
+
+        assertThat(indexes.stream().anyMatch(name -> name.endsWith("date_time_idx")))
+                .as("индексы %s", indexes).isTrue();
+    }
+
+    @Test
+    void uriDictionaryLookupUsesUniqueIndex() {
+        Set<String> indexes = indexesUsedBy("SELECT u.id FROM hit_uris u WHERE u.uri = '/events/1'");
+
+        assertThat(indexes.contains("hit_uris_uri_key")).as("индексы %s", indexes).isTrue();
+    }
+
+    // Без последовательного чтения на почти пустой таблице план покажет Seq Scan только при отсутствии индекса
+    private Set<String> indexesUsedBy(String sql) {
+        String plan = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+            return jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + sql, String.class);
+        });
+        Set<String> indexes = new TreeSet<>();
+        Matcher matcher = INDEX_NAME.matcher(plan);
+        while (matcher.find()) {
+            indexes.add(matcher.group(1));
+        }
+        return indexes;
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? value : defaultValue;
+    }
+}
@@ -0,0 +1,157 @@
+package stat.server.service;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import stat.dto.HitDtoRequest;
+import stat.dto.HitDtoStatResponse;
+import stat.server.model.Hit;
+import stat.server.repository.StatRepository;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Сравнение подсчёта уникальных хитов в БД (GROUP BY + COUNT(DISTINCT ip)) с прежним способом:
+// загрузить все сущности Hit и посчитать их в HashMap/HashSet. Память - байты, выделенные потоком теста.
+// Заполнение занимает десятки секунд, поэтому кроме STAT_TEST_DB_URL нужен STAT_BENCHMARK=true
+@SpringBootTest(properties = "stat.rollup.enabled=false")
+@EnabledIfEnvironmentVariable(named = "STAT_TEST_DB_URL", matches = ".+")
+class HitAggregationBenchmarkTest {
+
+    private static final int HITS = 300_000;
+    private static final int URIS = 100;
+    private static final int VISITORS = 5_000;
+    private static final int RUNS = 5;
+
+    @Autowired
+    private StatService statService;
+
+    @Autowired
+    private StatRepository statRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("STAT_TEST_DB_URL"));
+        registry.add("spring.datasource.username", () -> env("STAT_TEST_DB_USERNAME", "user"));
+        registry.add("spring.datasource.password", () -> env("STAT_TEST_DB_PASSWORD", "password"));
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "STAT_BENCHMARK", matches = "true")
+    void databaseAggregationBeatsInMemoryCounting() {
+        List<String> uris = saveHits();
+        Instant start = Instant.now().minus(1, ChronoUnit.DAYS);
+        Instant end = Instant.now().plus(1, ChronoUnit.DAYS);
+
+        Measurement database = measure(() -> statRepository.getUniqueStatsByUris(start, end, uris));
+        Measurement inMemory = measure(() -> countInMemory(start, end, uris));
+
+        assertThat(database.result()).isEqualTo(inMemory.result());
+        assertThat(database.allocatedBytes())
+                .as("выделено в БД-варианте %s, в памяти %s", database, inMemory)
+                .isLessThan(inMemory.allocatedBytes() / 10);
+        assertThat(database.elapsed())
+                .as("время в БД-варианте %s, в памяти %s", database, inMemory)
+                .isLessThan(inMemory.elapsed());
+    }
+
+    private List<String> saveHits() {
+        String app = "benchmark-" + UUID.randomUUID();
+        List<String> uris = new ArrayList<>();
+        for (int i = 0; i < URIS; i++) {
+            uris.add("/events/" + app + "/" + i);
+        }
+        List<HitDtoRequest> chunk = new ArrayList<>();
+        for (int i = 0; i < HITS; i++) {
+            int visitor = i % VISITORS;
+            chunk.add(HitDtoRequest.builder()
+                    .app(app)
+                    .uri(uris.get(i % URIS))
+                    .ip("10.3." + visitor / 256 + "." + visitor % 256)
+                    .build());
+            if (chunk.size() == 5_000) {
+                statService.saveHits(chunk);
+                chunk = new ArrayList<>();
+            }
+        }
+        statService.saveHits(chunk);
+        return uris;
+    }
+
+    // Прежняя реализация StatServiceImpl.getHits для unique=true
+    private List<HitDtoStatResponse> countInMemory(Instant start, Instant end, List<String> uris) {
+        return transactionTemplate.execute(status -> {
+            List<Hit> hits = entityManager.createQuery("SELECT h FROM Hit h JOIN FETCH h.app JOIN FETCH h.uri u " +
+                            "WHERE h.dateTime BETWEEN :start AND :end AND u.uri IN :uris", Hit.class)
+                    .setParameter("start", start)
+                    .setParameter("end", end)
+                    .setParameter("uris", uris)
+                    .getResultList();
+            Map<String, Map<String, Set<String>>> visitors = new HashMap<>();
+            for (Hit hit : hits) {
+                visitors.computeIfAbsent(hit.getApp().getName(), a -> new HashMap<>())
+                        .computeIfAbsent(hit.getUri().getUri(), u -> new HashSet<>())
+                        .add(hit.getIp());
+            }
+            List<HitDtoStatResponse> stats = new ArrayList<>();
+            visitors.forEach((app, byUri) -> byUri.forEach((uri, ips) ->
+                    stats.add(new HitDtoStatResponse(app, uri, ips.size()))));
+            entityManager.clear();
+            return stats;
+        });
+    }
+
+    // Первый прогон - прогрев, в зачёт идёт лучший из остальных
+    private Measurement measure(Supplier<List<HitDtoStatResponse>> query) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Measurement best = null;
+        for (int run = 0; run <= RUNS; run++) {
+            long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+            long started = System.nanoTime();
+            List<HitDtoStatResponse> result = query.get();
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+            long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+            if (run > 0 && (best == null || elapsed.compareTo(best.elapsed()) < 0)) {
+                best = new Measurement(sorted(result), elapsed, allocated);
+            }
+        }
+        return best;
+    }
+
+    private static List<HitDtoStatResponse> sorted(List<HitDtoStatResponse> stats) {
+        List<HitDtoStatResponse> result = new ArrayList<>(stats);
+        result.sort((h1, h2) -> h1.getUri().compareTo(h2.getUri()));
+        return result;
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? value : defaultValue;
+    }
+
+    private record Measurement(List<HitDtoStatResponse> result, Duration elapsed, long allocatedBytes) {
+    }
+}
@@ -0,0 +1,34 @@
+package stat.server.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IpAddressesTest {
+
+    @Test
+    void acceptsIpv4() {
+        for (String ip : new String[]{"0.0.0.0", "127.0.0.1", "192.168.10.255", "255.255.255.255"}) {
+            assertThat(IpAddresses.isValid(ip)).as("ip %s", ip).isTrue();
+        }
+    }
+
+    @Test
+    void acceptsIpv6() {
+        for (String ip : new String[]{"::", "::1", "1::", "2001:db8::8a2e:370:7334",
+                "2001:0db8:0000:0000:0000:ff00:0042:8329", "fe80::1:2:3:4:5:6", "::ffff:192.168.0.1",
+                "64:ff9b::10.0.0.1"}) {
+            assertThat(IpAddresses.isValid(ip)).as("ip %s", ip).isTrue();
+        }
+    }
+
+    @Test
+    void rejectsMalformedAddresses() {
+        for (String ip : new String[]{null, "", "localhost", "example.com", "256.1.1.1", "1.2.3", "1.2.3.4.5",
+                "01.2.3.4", " 1.2.3.4", "1.2.3.4/24", "1:2:3:4:5:6:7", "1:2:3:4:5:6:7:8:9", "1::2::3",
+                ":1:2:3:4:5:6:7", "1:2:3:4:5:6:7:", "12345::", "g::1", ":::", "1:2:3:4:5:6:7:1.2.3.4",
+                "::ffff:300.1.1.1", "fe80::1%eth0"}) {
+            assertThat(IpAddresses.isValid(ip)).as("ip %s", ip).isFalse();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package stat.server.service;
+
+import org.junit.jupiter.api.Test;
+import stat.server.model.Granularity;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RollupPlannerTest {
+
+    private final RollupPlanner planner = new RollupPlanner();
+
+    @Test
+    void raggedWindowSplitsIntoDaysHoursMinutesAndRawEdges() {
+        Instant start = Instant.parse("2024-01-01T22:37:15Z");
+        Instant end = Instant.parse("2024-01-03T01:05:30Z");
+
+        List<RollupPlanner.Segment> segments = planner.plan(start, end, Granularity.MINUTE);
+
+        assertThat(segments).containsExactly(
+                segment(null, "2024-01-01T22:37:15Z", "2024-01-01T22:38:00Z"),
+                segment(Granularity.MINUTE, "2024-01-01T22:38:00Z", "2024-01-01T23:00:00Z"),
+                segment(Granularity.HOUR, "2024-01-01T23:00:00Z", "2024-01-02T00:00:00Z"),
+                segment(Granularity.DAY, "2024-01-02T00:00:00Z", "2024-01-03T00:00:00Z"),
+                segment(Granularity.HOUR, "2024-01-03T00:00:00Z", "2024-01-03T01:00:00Z"),
+                segment(Granularity.MINUTE, "2024-01-03T01:00:00Z", "2024-01-03T01:05:00Z"),
+                segment(null, "2024-01-03T01:05:00Z", "2024-01-03T01:05:30Z"));
+    }
+
+    @Test
+    void finestHourLeavesMinutesToRawTable() {
+        Instant start = Instant.parse("2024-01-01T22:37:15Z");
+        Instant end = Instant.parse("2024-01-02T01:05:30Z");
+
+        List<RollupPlanner.Segment> segments = planner.plan(start, end, Granularity.HOUR);
+
+        assertThat(segments).containsExactly(
+                segment(null, "2024-01-01T22:37:15Z", "2024-01-01T23:00:00Z"),
+                segment(Granularity.HOUR, "2024-01-01T23:00:00Z", "2024-01-02T01:00:00Z"),
+                segment(null, "2024-01-02T01:00:00Z", "2024-01-02T01:05:30Z"));
+    }
+
+    @Test
+    void windowInsideOneMinuteIsReadRaw() {
+        Instant start = Instant.parse("2024-01-01T10:00:05Z");
+        Instant end = Instant.parse("2024-01-01T10:00:50Z");
+
+        assertThat(planner.plan(start, end, Granularity.MINUTE))
+                .containsExactly(new RollupPlanner.Segment(null, start, end));
+    }
+
+    @Test
+    void alignedWindowUsesOnlyBuckets() {
+        List<RollupPlanner.Segment> segments = planner.plan(
+                Instant.parse("2024-01-01T00:00:00Z"), Instant.parse("2024-01-04T00:00:00Z"), Granularity.MINUTE);
+
+        assertThat(segments).containsExactly(
+                segment(Granularity.DAY, "2024-01-01T00:00:00Z", "2024-01-04T00:00:00Z"));
+    }
+
+    @Test
+    void emptyWindowHasNoSegments() {
+        Instant instant = Instant.parse("2024-01-01T10:00:00Z");
+
+        assertThat(planner.plan(instant, instant, Granularity.MINUTE)).isEmpty();
+    }
+
+    // Каждый момент из [start, end) попадает ровно в один отрезок, а бакеты выровнены по своей гранулярности
+    @Test
+    void randomWindowsAreCoveredExactlyOnce() {
+        Random random = new Random(42);
+        Instant base = Instant.parse("2024-01-01T00:00:00Z");
+        for (int i = 0; i < 1_000; i++) {
+            Instant start = base.plusMillis(random.nextLong(Duration.ofDays(10).toMillis()));
+            Instant end = start.plusMillis(random.nextLong(Duration.ofDays(5).toMillis()));
+
+            List<RollupPlanner.Segment> segments = planner.plan(start, end, Granularity.MINUTE);
+
+            Instant cursor = start;
+            for (RollupPlanner.Segment segment : segments) {
+                assertThat(segment.start()).isEqualTo(cursor);
+                assertThat(segment.start()).isBefore(segment.end());
+                if (!segment.isRaw()) {
+                    assertThat(segment.granularity().floor(segment.start())).isEqualTo(segment.start());
+                    assertThat(segment.granularity().floor(segment.end())).isEqualTo(segment.end());
+                }
+                cursor = segment.end();
+            }
+            assertThat(cursor).isEqualTo(start.equals(end) ? start : end);
+        }
+    }
+
+    private static RollupPlanner.Segment segment(Granularity granularity, String start, String end) {
+        return new RollupPlanner.Segment(granularity, Instant.parse(start), Instant.parse(end));
+    }
+}
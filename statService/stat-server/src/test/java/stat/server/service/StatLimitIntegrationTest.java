@@ -0,0 +1,153 @@
+package stat.server.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import stat.dto.HitDtoRequest;
+import stat.dto.HitDtoStatResponse;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// limit на всех ветках подсчёта и потоковая выгрузка против настоящего PostgreSQL (STAT_TEST_DB_URL).
+// Агрегаты и HLL-скетчи включены: неуникальные хиты идут из hit_rollups, уникальные - из скетчей, exact - по hits.
+// fetch-size меньше числа строк, чтобы курсор читал результат в несколько заходов
+@SpringBootTest(properties = {
+        "stat.rollup.enabled=true",
+        "stat.unique.approximate=true",
+        "stat.stats.stream.fetch-size=2"
+})
+@EnabledIfEnvironmentVariable(named = "STAT_TEST_DB_URL", matches = ".+")
+class StatLimitIntegrationTest {
+
+    private static final int URIS = 5;
+    private static final int LIMIT = 3;
+
+    @Autowired
+    private StatService statService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("STAT_TEST_DB_URL"));
+        registry.add("spring.datasource.username", () -> env("STAT_TEST_DB_USERNAME", "user"));
+        registry.add("spring.datasource.password", () -> env("STAT_TEST_DB_PASSWORD", "password"));
+    }
+
+    @Test
+    void limitKeepsTopUrisOnRollupPath() {
+        List<String> uris = saveHits();
+
+        Collection<HitDtoStatResponse> stats = statService.getHits(start(), end(), uris, false, false, LIMIT);
+
+        assertThat(hits(stats)).containsExactly(5L, 4L, 3L);
+        assertThat(uris(stats)).containsExactly(uris.get(0), uris.get(1), uris.get(2));
+    }
+
+    // Для пяти и меньше посетителей оценка HyperLogLog совпадает с точным числом
+    @Test
+    void limitKeepsTopUrisOnSketchPath() {
+        List<String> uris = saveHits();
+
+        Collection<HitDtoStatResponse> stats = statService.getHits(start(), end(), uris, true, false, LIMIT);
+
+        assertThat(uris(stats)).containsExactly(uris.get(0), uris.get(1), uris.get(2));
+    }
+
+    @Test
+    void limitIsAppliedInDatabaseOnRawPath() {
+        List<String> uris = saveHits();
+
+        Collection<HitDtoStatResponse> stats = statService.getHits(start(), end(), uris, true, true, LIMIT);
+
+        assertThat(hits(stats)).containsExactly(5L, 4L, 3L);
+        assertThat(uris(stats)).containsExactly(uris.get(0), uris.get(1), uris.get(2));
+    }
+
+    @Test
+    void streamReadsCursorInsideReadOnlyTransaction() {
+        List<String> uris = saveHits();
+        List<HitDtoStatResponse> streamed = new ArrayList<>();
+        List<Boolean> autoCommit = new ArrayList<>();
+
+        statService.streamHits(start(), end(), uris, false, null, stat -> {
+            assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isTrue();
+            assertThat(TransactionSynchronizationManager.isCurrentTransactionReadOnly()).isTrue();
+            autoCommit.add(autoCommit());
+            streamed.add(stat);
+        });
+
+        // без транзакции драйвер PostgreSQL в режиме autocommit игнорирует fetch-size и читает всё сразу
+        assertThat(autoCommit).doesNotContain(true);
+        assertThat(hits(streamed)).containsExactly(5L, 4L, 3L, 2L, 1L);
+    }
+
+    @Test
+    void streamTruncatesToLimit() {
+        List<String> uris = saveHits();
+        List<HitDtoStatResponse> streamed = new ArrayList<>();
+
+        statService.streamHits(start(), end(), uris, true, LIMIT, streamed::add);
+
+        assertThat(uris(streamed)).containsExactly(uris.get(0), uris.get(1), uris.get(2));
+    }
+
+    // i-й uri получает URIS - i хитов с разных ip, поэтому обычный и уникальный порядок совпадают
+    private List<String> saveHits() {
+        String app = "limit-" + UUID.randomUUID();
+        List<String> uris = new ArrayList<>();
+        List<HitDtoRequest> hits = new ArrayList<>();
+        for (int i = 0; i < URIS; i++) {
+            String uri = "/events/" + app + "/" + i;
+            uris.add(uri);
+            for (int visitor = 0; visitor < URIS - i; visitor++) {
+                hits.add(HitDtoRequest.builder().app(app).uri(uri).ip("10.2." + i + "." + visitor).build());
+            }
+        }
+        statService.saveHits(hits);
+        return uris;
+    }
+
+    private boolean autoCommit() {
+        try {
+            return DataSourceUtils.getConnection(dataSource).getAutoCommit();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static LocalDateTime start() {
+        return LocalDateTime.now().minusDays(2).withNano(0);
+    }
+
+    private static LocalDateTime end() {
+        return LocalDateTime.now().plusDays(2).withNano(0);
+    }
+
+    private static List<Long> hits(Collection<HitDtoStatResponse> stats) {
+        return stats.stream().map(HitDtoStatResponse::getHits).toList();
+    }
+
+    private static List<String> uris(Collection<HitDtoStatResponse> stats) {
+        return stats.stream().map(HitDtoStatResponse::getUri).toList();
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? value : defaultValue;
+    }
+}